@@ -0,0 +1,47 @@
+package com.fredgar.pe.business.mapper;
+
+import com.fredgar.pe.business.enums.Currency;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la expresión anterior del mapper ({@code amount.multiply(rate)}), la misma expresión con
+ * la escala de la moneda y la conversión en punto fijo de {@link FixedPointMoney}. Ejecutar con
+ * {@code -prof gc} para ver la memoria asignada por operación.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixedPointMoneyBenchmark {
+
+  private final BigDecimal amount = new BigDecimal("1250.75");
+  private final BigDecimal rate = new BigDecimal("3.7425");
+
+  @Benchmark
+  public BigDecimal previousMapperExpression() {
+    return amount.multiply(rate);
+  }
+
+  @Benchmark
+  public BigDecimal bigDecimalSettled() {
+    return amount.multiply(rate).setScale(Currency.PEN.getMinorUnits(), Currency.PEN.getRoundingMode());
+  }
+
+  @Benchmark
+  public BigDecimal fixedPoint() {
+    return FixedPointMoney.convert(amount, rate, Currency.PEN);
+  }
+}
@@ -0,0 +1,113 @@
+package com.fredgar.pe.security.auth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Relleno de credenciales contra {@link AuthenticationService#authenticate}: cada hilo es un atacante
+ * con su propia IP que prueba contraseñas incorrectas sobre una lista de cuentas existentes. Compara
+ * el guardia con la configuración de la aplicación frente a uno que nunca bloquea. Los contadores
+ * {@code bcrypt} e {@code bloqueados} dan, por segundo, los intentos que llegaron a verificar la
+ * contraseña y los rechazados antes; con el guardia activo {@code bcrypt} debe caer a casi cero en
+ * cuanto se bloquean las IP, de modo que la CPU no crece con el ritmo del ataque.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class CredentialStuffingBenchmark {
+
+  private static final int ACCOUNTS = 1000;
+
+  @Param({"ENABLED", "DISABLED"})
+  public String guard;
+
+  private AuthenticationService service;
+  private List<String> accounts;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    String hash = passwordEncoder.encode("password");
+    accounts = new ArrayList<>(ACCOUNTS);
+    List<UserDetails> users = new ArrayList<>(ACCOUNTS);
+    for (int i = 0; i < ACCOUNTS; i++) {
+      accounts.add("cuenta-" + i + "@example.com");
+      users.add(User.withUsername(accounts.get(i)).password(hash).roles("USER").build());
+    }
+    DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+    provider.setPasswordEncoder(passwordEncoder);
+    provider.setUserDetailsService(new InMemoryUserDetailsManager(users));
+
+    // Los mismos valores que application.yml; deshabilitado, ningún contador llega a bloquear
+    LoginAttemptGuard loginAttemptGuard = "ENABLED".equals(guard)
+        ? new LoginAttemptGuard(5, 50, Duration.ofSeconds(30), Duration.ofMinutes(15), 100_000)
+        : new LoginAttemptGuard(Integer.MAX_VALUE, Integer.MAX_VALUE, Duration.ofSeconds(30), Duration.ofMinutes(15), 100_000);
+
+    // Un intento fallido no llega a los repositorios, a JWT ni a la transacción
+    service = new AuthenticationService(
+        null, null, null, passwordEncoder, null, new ProviderManager(provider), loginAttemptGuard, new ObjectMapper(), null);
+  }
+
+  /**
+   * Atacante de un hilo: su IP y su posición en la lista de cuentas.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Attacker {
+
+    private static final AtomicInteger IPS = new AtomicInteger();
+
+    public long bcrypt;
+    public long bloqueados;
+
+    private String ip;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      ip = "203.0.113." + IPS.incrementAndGet();
+    }
+  }
+
+  @Benchmark
+  public void attempt(Attacker attacker) {
+    String email = accounts.get(attacker.next++ % ACCOUNTS);
+    try {
+      service.authenticate(new AuthenticationRequest(email, "incorrecta"), attacker.ip);
+    } catch (BadCredentialsException e) {
+      attacker.bcrypt++;
+    } catch (LoginLockedException e) {
+      attacker.bloqueados++;
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package com.fredgar.pe.security.auth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fredgar.pe.ServiceSpringSecurityApplication;
+import com.fredgar.pe.security.user.Role;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.Filter;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Prueba de carga de los modos de sesión: solicitudes autenticadas concurrentes y renovaciones de
+ * token, con la aplicación completa sobre H2. Al terminar cada prueba se imprimen las sentencias SQL
+ * por operación, que en modo {@code STATELESS} deben ser cero para las solicitudes autenticadas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class SessionModeBenchmark {
+
+  @Param({"STATEFUL", "STATELESS"})
+  public String sessionMode;
+
+  @Param({"USER", "CLAIMS"})
+  public String filterMode;
+
+  private ConfigurableApplicationContext context;
+  private MockMvc mockMvc;
+  private ObjectMapper objectMapper;
+  private Statistics statistics;
+  private String accessToken;
+  private final AtomicLong operations = new AtomicLong();
+
+  @Setup(Level.Trial)
+  public void start() throws Exception {
+    context = new SpringApplicationBuilder(ServiceSpringSecurityApplication.class)
+        .properties(
+            "server.port=0",
+            "spring.datasource.url=jdbc:h2:mem:session-mode-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+            "spring.jpa.show-sql=false",
+            "spring.jpa.properties.hibernate.generate_statistics=true",
+            "logging.level.root=WARN",
+            "application.security.jwt.session-mode=" + sessionMode,
+            "application.security.jwt.filter-mode=" + filterMode)
+        .run();
+    mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+        .addFilters(context.getBean("springSecurityFilterChain", Filter.class))
+        .build();
+    objectMapper = context.getBean(ObjectMapper.class);
+    statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    accessToken = register().getAccessToken();
+  }
+
+  @Setup(Level.Iteration)
+  public void resetStatistics() {
+    statistics.clear();
+    operations.set(0);
+  }
+
+  @TearDown(Level.Iteration)
+  public void reportStatements() {
+    long count = Math.max(1, operations.get());
+    System.out.printf("%n[%s/%s] sentencias SQL por operación: %.3f%n",
+        sessionMode, filterMode, (double) statistics.getPrepareStatementCount() / count);
+  }
+
+  @TearDown(Level.Trial)
+  public void stop() {
+    context.close();
+  }
+
+  /**
+   * Refresh token propio de cada hilo: cada renovación consume el anterior.
+   */
+  @State(Scope.Thread)
+  public static class Session {
+
+    private String refreshToken;
+
+    @Setup(Level.Trial)
+    public void login(SessionModeBenchmark benchmark) throws Exception {
+      refreshToken = benchmark.register().getRefreshToken();
+    }
+  }
+
+  @Benchmark
+  public int authenticatedRequest() throws Exception {
+    operations.incrementAndGet();
+    return mockMvc.perform(get("/api/v1/demo-controller/public")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+        .andReturn().getResponse().getStatus();
+  }
+
+  @Benchmark
+  public String refresh(Session session) throws Exception {
+    operations.incrementAndGet();
+    String body = mockMvc.perform(post("/api/v1/auth/refresh-token")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer " + session.refreshToken))
+        .andReturn().getResponse().getContentAsString();
+    session.refreshToken = objectMapper.readValue(body, AuthenticationResponse.class).getRefreshToken();
+    return session.refreshToken;
+  }
+
+  private AuthenticationResponse register() throws Exception {
+    RegisterRequest request = RegisterRequest.builder()
+        .firstname("Carga")
+        .lastname("Carga")
+        .email(UUID.randomUUID() + "@example.com")
+        .password("password")
+        .role(Role.USER)
+        .build();
+    String body = mockMvc.perform(post("/api/v1/auth/register")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(request)))
+        .andReturn().getResponse().getContentAsString();
+    return objectMapper.readValue(body, AuthenticationResponse.class);
+  }
+}
@@ -0,0 +1,65 @@
+package com.fredgar.pe.security.config;
+
+import com.fredgar.pe.security.user.Role;
+import com.fredgar.pe.security.user.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la verificación de un token repetido a través de la caché de {@link JwtService} con el
+ * camino anterior, que construía un parser y verificaba la firma RS256 en cada extracción.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+  private JwtKeyRing keyRing;
+  private JwtService jwtService;
+  private String token;
+
+  @Setup
+  public void setUp() throws Exception {
+    keyRing = new JwtKeyRing("RS256", "", "", "", 604_800_000L);
+    keyRing.init();
+    jwtService = new JwtService(keyRing);
+    ReflectionTestUtils.setField(jwtService, "jwtExpiration", 86_400_000L);
+    ReflectionTestUtils.setField(jwtService, "refreshExpiration", 604_800_000L);
+    ReflectionTestUtils.setField(jwtService, "sessionMode", SessionMode.STATEFUL);
+    ReflectionTestUtils.setField(jwtService, "claimsCacheMaxSize", 10_000);
+    jwtService.init();
+    token = jwtService.generateToken(User.builder()
+        .id(1)
+        .email("bench@example.com")
+        .password("secreto")
+        .role(Role.USER)
+        .build());
+  }
+
+  @Benchmark
+  public Claims parsePerRequest() {
+    return Jwts.parser().keyLocator(keyRing.locator()).build().parseSignedClaims(token).getPayload();
+  }
+
+  @Benchmark
+  public Optional<VerifiedJwt> cachedVerify() {
+    return jwtService.verify(token);
+  }
+}
@@ -0,0 +1,64 @@
+package com.fredgar.pe.security.config;
+
+import com.fredgar.pe.security.user.Role;
+import com.fredgar.pe.security.user.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara una decisión de autorización de la cadena de {@code AntPathRequestMatcher} anterior con la
+ * de {@link RouteAuthorizationTable}, para una ruta al inicio, al final y fuera de las reglas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteAuthorizationTableBenchmark {
+
+  @Param({"/api/v1/auth/authenticate", "/api/v1/management/users", "/api/v1/users/change-password"})
+  public String path;
+
+  private final RouteAuthorizationTable table = SecurityConfiguration.routeAuthorizationTable();
+  private final LegacyRouteChain legacy = new LegacyRouteChain();
+
+  private MockHttpServletRequest request;
+  private RequestAuthorizationContext context;
+  private Authentication authentication;
+
+  @Setup
+  public void setUp() {
+    request = new MockHttpServletRequest("GET", path);
+    request.setServletPath(path);
+    context = new RequestAuthorizationContext(request);
+    User user = User.builder().id(1).email("manager@example.com").role(Role.MANAGER).build();
+    authentication = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+  }
+
+  @Benchmark
+  public AuthorizationDecision requestMatchersChain() {
+    return legacy.check(() -> authentication, request);
+  }
+
+  @Benchmark
+  public AuthorizationDecision routeTable() {
+    return table.check(() -> authentication, context);
+  }
+}
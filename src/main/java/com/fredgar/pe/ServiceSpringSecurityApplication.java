@@ -1,12 +1,14 @@
 package com.fredgar.pe;
 
 import com.fredgar.pe.security.auth.AuthenticationService;
+import com.fredgar.pe.security.auth.EmailAlreadyRegisteredException;
 import com.fredgar.pe.security.auth.RegisterRequest;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import static com.fredgar.pe.security.user.Role.*;
 
@@ -17,9 +19,11 @@ import static com.fredgar.pe.security.user.Role.*;
  * @SpringBootApplication - Anotación de conveniencia que agrega @Configuration, @EnableAutoConfiguration, y @ComponentScan.
  *                          Esto permite la configuración automática basada en el classpath y la definición de beans.
  * @EnableJpaAuditing - Habilita la auditoría JPA en la aplicación, permitiendo el llenado automático de campos de auditoría.
+ * @EnableScheduling - Habilita las tareas programadas, como la depuración periódica de tokens.
  */
 @SpringBootApplication
 @EnableJpaAuditing(auditorAwareRef = "auditorAware")
+@EnableScheduling
 public class ServiceSpringSecurityApplication {
 
   /**
@@ -50,7 +54,7 @@ public class ServiceSpringSecurityApplication {
           .password("password")
           .role(ADMIN)
           .build();
-      System.out.println("Admin token: " + service.register(admin).getAccessToken());
+      register(service, "Admin", admin);
 
       // Creación y registro del usuario manager.
       var manager = RegisterRequest.builder()
@@ -60,7 +64,7 @@ public class ServiceSpringSecurityApplication {
           .password("password")
           .role(MANAGER)
           .build();
-      System.out.println("Manager token: " + service.register(manager).getAccessToken());
+      register(service, "Manager", manager);
 
       // Creación y registro del usuario user.
       var user = RegisterRequest.builder()
@@ -70,7 +74,7 @@ public class ServiceSpringSecurityApplication {
           .password("password")
           .role(USER)
           .build();
-      System.out.println("User token: " + service.register(user).getAccessToken());
+      register(service, "User", user);
 
       // Creación y registro del usuario específico.
       var specific = RegisterRequest.builder()
@@ -80,7 +84,23 @@ public class ServiceSpringSecurityApplication {
           .password("password")
           .role(ADMIN)
           .build();
-      System.out.println("Specific token: " + service.register(specific).getAccessToken());
+      register(service, "Specific", specific);
     };
   }
+
+  /**
+   * Registra un usuario inicial e imprime su token. Si otra instancia que comparte la base de datos ya
+   * lo registró, solo lo informa.
+   *
+   * @param service Servicio de autenticación.
+   * @param label Nombre del usuario en el mensaje.
+   * @param request Datos del usuario.
+   */
+  private static void register(AuthenticationService service, String label, RegisterRequest request) {
+    try {
+      System.out.println(label + " token: " + service.register(request).getAccessToken());
+    } catch (EmailAlreadyRegisteredException e) {
+      System.out.println(label + " ya registrado: " + request.getEmail());
+    }
+  }
 }
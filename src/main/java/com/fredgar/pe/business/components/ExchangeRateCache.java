@@ -0,0 +1,198 @@
+package com.fredgar.pe.business.components;
+
+import com.fredgar.pe.business.dto.ExchangeRateCacheStatsDTO;
+import com.fredgar.pe.business.enums.Currency;
+import com.fredgar.pe.business.model.ExchangeRate;
+import com.fredgar.pe.business.repository.ExchangeRateRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Matriz en memoria de tipos de cambio indexada por el par de ordinales de {@link Currency}.
+ * Además de los pares registrados contiene los derivados por inversa o por moneda pivote.
+ * Las lecturas no tocan la base de datos ni toman bloqueos; las escrituras construyen una nueva
+ * instantánea inmutable fuera del camino de lectura y la publican con un intercambio atómico al
+ * confirmar la transacción, de modo que un lector nunca ve una actualización a medias. Cada
+ * instantánea lleva una época creciente que identifica el conjunto de tipos que valorizó una respuesta.
+ */
+@Component
+@RequiredArgsConstructor
+public class ExchangeRateCache {
+
+  private static final int CURRENCIES = Currency.values().length;
+
+  private final ExchangeRateRepository exchangeRateRepository;
+  private final ExchangeRateTriangulator exchangeRateTriangulator;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(
+      0, new ExchangeRate[CURRENCIES * CURRENCIES], new ExchangeRate[CURRENCIES * CURRENCIES]));
+
+  @PostConstruct
+  public void reload() {
+    replaceAll(exchangeRateRepository.findAll());
+  }
+
+  /**
+   * Vuelve a cargar todos los tipos de cambio cuando la transacción actual confirme; se usa tras
+   * escrituras masivas que no pasan por {@link #put(ExchangeRate)}.
+   */
+  public void reloadAfterCommit() {
+    TransactionCallbacks.afterCommit(this::reload);
+  }
+
+  public Snapshot snapshot() {
+    return snapshot.get();
+  }
+
+  public ExchangeRate get(Currency currencyFrom, Currency currencyTo) {
+    return get(snapshot.get(), currencyFrom, currencyTo);
+  }
+
+  public ExchangeRate get(Snapshot snapshot, Currency currencyFrom, Currency currencyTo) {
+    ExchangeRate exchangeRate = snapshot.resolved[index(currencyFrom, currencyTo)];
+    if (exchangeRate == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return exchangeRate;
+  }
+
+  /**
+   * Programa la publicación del tipo de cambio para cuando la transacción actual confirme.
+   * Si el par del registro cambió, la entrada anterior con el mismo id se descarta. Las transacciones
+   * pueden ejecutar sus callbacks en otro orden que el de confirmación, así que una copia con una
+   * versión anterior a la publicada se ignora.
+   */
+  public void put(ExchangeRate exchangeRate) {
+    ExchangeRate copy = copyOf(exchangeRate);
+    TransactionCallbacks.afterCommit(() -> snapshot.updateAndGet(current -> {
+      ExchangeRate[] next = current.direct.clone();
+      for (int i = 0; i < next.length; i++) {
+        if (next[i] != null && next[i].getId().equals(copy.getId())) {
+          if (!isNewer(copy, next[i])) {
+            return current;
+          }
+          next[i] = null;
+        }
+      }
+      next[index(copy.getCurrencyFrom(), copy.getCurrencyTo())] = copy;
+      return new Snapshot(current.epoch + 1, next, exchangeRateTriangulator.resolve(next));
+    }));
+  }
+
+  /**
+   * Publica los tipos de cambio leídos de la base de datos, combinados por id con los publicados:
+   * de cada registro gana la versión más alta, de modo que una lectura hecha antes de que confirmara
+   * una escritura no reemplaza lo que esa escritura ya publicó. Los tipos de cambio no se borran, así
+   * que un registro publicado que falte en la lectura se conserva.
+   */
+  public void replaceAll(Collection<ExchangeRate> exchangeRates) {
+    List<ExchangeRate> copies = exchangeRates.stream().map(ExchangeRateCache::copyOf).toList();
+    snapshot.updateAndGet(current -> {
+      Map<Integer, ExchangeRate> byId = new TreeMap<>();
+      for (ExchangeRate published : current.direct) {
+        if (published != null) {
+          byId.put(published.getId(), published);
+        }
+      }
+      for (ExchangeRate copy : copies) {
+        byId.merge(copy.getId(), copy, (published, loaded) -> isNewer(loaded, published) ? loaded : published);
+      }
+      ExchangeRate[] next = new ExchangeRate[CURRENCIES * CURRENCIES];
+      for (ExchangeRate exchangeRate : byId.values()) {
+        next[index(exchangeRate.getCurrencyFrom(), exchangeRate.getCurrencyTo())] = exchangeRate;
+      }
+      return new Snapshot(current.epoch + 1, next, exchangeRateTriangulator.resolve(next));
+    });
+  }
+
+  public ExchangeRateCacheStatsDTO stats() {
+    Snapshot current = snapshot.get();
+    return new ExchangeRateCacheStatsDTO(
+        current.epoch, hits.sum(), misses.sum(), count(current.direct), count(current.resolved));
+  }
+
+  /**
+   * Vista inmutable de la matriz vigente en un instante; permite resolver varios pares
+   * contra el mismo conjunto de tipos de cambio. {@code direct} guarda solo los tipos registrados
+   * y {@code resolved} además los derivados por {@link ExchangeRateTriangulator}. Los arreglos
+   * nunca se modifican después de publicar la instantánea.
+   */
+  public static final class Snapshot {
+
+    private final long epoch;
+    private final ExchangeRate[] direct;
+    private final ExchangeRate[] resolved;
+
+    private Snapshot(long epoch, ExchangeRate[] direct, ExchangeRate[] resolved) {
+      this.epoch = epoch;
+      this.direct = direct;
+      this.resolved = resolved;
+    }
+
+    public long epoch() {
+      return epoch;
+    }
+
+    /**
+     * @return los tipos de cambio registrados (sin derivados) ordenados por id.
+     */
+    public List<ExchangeRate> registered() {
+      List<ExchangeRate> registered = new ArrayList<>();
+      for (ExchangeRate exchangeRate : direct) {
+        if (exchangeRate != null) {
+          registered.add(exchangeRate);
+        }
+      }
+      registered.sort(Comparator.comparing(ExchangeRate::getId));
+      return registered;
+    }
+  }
+
+  private static int count(ExchangeRate[] rates) {
+    int size = 0;
+    for (ExchangeRate exchangeRate : rates) {
+      if (exchangeRate != null) {
+        size++;
+      }
+    }
+    return size;
+  }
+
+  private static int index(Currency currencyFrom, Currency currencyTo) {
+    return currencyFrom.ordinal() * CURRENCIES + currencyTo.ordinal();
+  }
+
+  private static boolean isNewer(ExchangeRate candidate, ExchangeRate published) {
+    return version(candidate) > version(published);
+  }
+
+  private static long version(ExchangeRate exchangeRate) {
+    return exchangeRate.getVersion() == null ? -1 : exchangeRate.getVersion();
+  }
+
+  // Copia desacoplada del contexto de persistencia para que nadie mute la entrada publicada
+  private static ExchangeRate copyOf(ExchangeRate exchangeRate) {
+    ExchangeRate copy = new ExchangeRate();
+    copy.setId(exchangeRate.getId());
+    copy.setCurrencyFrom(exchangeRate.getCurrencyFrom());
+    copy.setCurrencyTo(exchangeRate.getCurrencyTo());
+    copy.setRate(exchangeRate.getRate());
+    copy.setVersion(exchangeRate.getVersion());
+    return copy;
+  }
+}
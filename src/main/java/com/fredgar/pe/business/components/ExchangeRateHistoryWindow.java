@@ -0,0 +1,196 @@
+package com.fredgar.pe.business.components;
+
+import com.fredgar.pe.business.enums.Currency;
+import com.fredgar.pe.business.model.ExchangeRate;
+import com.fredgar.pe.business.model.ExchangeRateHistory;
+import com.fredgar.pe.business.repository.ExchangeRateHistoryRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ventana en memoria con las últimas versiones de cada par del historial de tipos de cambio.
+ * Las consultas a una fecha cubierta por la ventana se resuelven con una búsqueda binaria;
+ * las fechas anteriores se consultan en la base de datos por el índice (par, effective_from).
+ * Una versión sin tipo marca el cierre del par, por ejemplo cuando una actualización movió su
+ * registro a otro par: desde esa fecha el par ya no tiene tipo registrado.
+ */
+@Component
+public class ExchangeRateHistoryWindow {
+
+  private static final Currency[] VALUES = Currency.values();
+  private static final int CURRENCIES = VALUES.length;
+
+  private final ExchangeRateHistoryRepository exchangeRateHistoryRepository;
+  private final ExchangeRateTriangulator exchangeRateTriangulator;
+  private final int windowSize;
+
+  private final Object writeLock = new Object();
+  private final AtomicReferenceArray<PairHistory> pairs = new AtomicReferenceArray<>(CURRENCIES * CURRENCIES);
+
+  public ExchangeRateHistoryWindow(
+      ExchangeRateHistoryRepository exchangeRateHistoryRepository,
+      ExchangeRateTriangulator exchangeRateTriangulator,
+      @Value("${application.exchange.history.window-size}") int windowSize) {
+    this.exchangeRateHistoryRepository = exchangeRateHistoryRepository;
+    this.exchangeRateTriangulator = exchangeRateTriangulator;
+    this.windowSize = windowSize;
+  }
+
+  @PostConstruct
+  public void reload() {
+    for (Currency currencyFrom : VALUES) {
+      for (Currency currencyTo : VALUES) {
+        // Se pide una versión de más para saber si la ventana contiene todo el historial del par
+        List<ExchangeRateHistory> latest = exchangeRateHistoryRepository
+            .findByCurrencyFromAndCurrencyToOrderByEffectiveFromDesc(
+                currencyFrom, currencyTo, PageRequest.of(0, windowSize + 1));
+        boolean complete = latest.size() <= windowSize;
+        int size = Math.min(latest.size(), windowSize);
+        Instant[] effectiveFrom = new Instant[size];
+        BigDecimal[] rates = new BigDecimal[size];
+        for (int i = 0; i < size; i++) {
+          ExchangeRateHistory version = latest.get(size - 1 - i);
+          effectiveFrom[i] = version.getEffectiveFrom();
+          rates[i] = version.getRate();
+        }
+        pairs.set(index(currencyFrom, currencyTo), new PairHistory(effectiveFrom, rates, complete));
+      }
+    }
+  }
+
+  /**
+   * Resuelve el par en {@code asOf} igual que {@link ExchangeRateCache} lo hace con los tipos actuales:
+   * si el par no tenía tipo registrado en esa fecha, se deriva por inversa o por moneda pivote a partir
+   * de los tipos registrados vigentes en esa misma fecha.
+   *
+   * @return el tipo de cambio registrado o derivado, o {@code null} si no hay forma de obtenerlo.
+   */
+  public ExchangeRate resolveAt(Currency currencyFrom, Currency currencyTo, Instant asOf) {
+    BigDecimal rate = rateAt(currencyFrom, currencyTo, asOf);
+    if (rate != null) {
+      return historical(currencyFrom, currencyTo, rate);
+    }
+    ExchangeRate[] direct = new ExchangeRate[CURRENCIES * CURRENCIES];
+    for (Currency from : VALUES) {
+      for (Currency to : VALUES) {
+        BigDecimal registered = from == to ? null : rateAt(from, to, asOf);
+        if (registered != null) {
+          direct[index(from, to)] = historical(from, to, registered);
+        }
+      }
+    }
+    return exchangeRateTriangulator.resolve(direct)[index(currencyFrom, currencyTo)];
+  }
+
+  /**
+   * @return el tipo de cambio registrado vigente en {@code asOf}, o {@code null} si el par no tenía
+   * tipo en esa fecha o ya estaba cerrado.
+   */
+  public BigDecimal rateAt(Currency currencyFrom, Currency currencyTo, Instant asOf) {
+    PairHistory history = pairs.get(index(currencyFrom, currencyTo));
+    int position = history.floor(asOf);
+    if (position >= 0) {
+      return history.rates[position];
+    }
+    if (history.complete) {
+      return null;
+    }
+    return exchangeRateHistoryRepository
+        .findFirstByCurrencyFromAndCurrencyToAndEffectiveFromLessThanEqualOrderByEffectiveFromDesc(
+            currencyFrom, currencyTo, asOf)
+        .map(ExchangeRateHistory::getRate)
+        .orElse(null);
+  }
+
+  /**
+   * Agrega la versión a la ventana cuando la transacción que la insertó confirma.
+   */
+  public void append(ExchangeRateHistory version) {
+    int index = index(version.getCurrencyFrom(), version.getCurrencyTo());
+    Instant effectiveFrom = version.getEffectiveFrom();
+    BigDecimal rate = version.getRate();
+    TransactionCallbacks.afterCommit(() -> {
+      synchronized (writeLock) {
+        pairs.set(index, pairs.get(index).append(effectiveFrom, rate, windowSize));
+      }
+    });
+  }
+
+  private static ExchangeRate historical(Currency currencyFrom, Currency currencyTo, BigDecimal rate) {
+    ExchangeRate historical = new ExchangeRate();
+    historical.setCurrencyFrom(currencyFrom);
+    historical.setCurrencyTo(currencyTo);
+    historical.setRate(rate);
+    return historical;
+  }
+
+  private static int index(Currency currencyFrom, Currency currencyTo) {
+    return currencyFrom.ordinal() * CURRENCIES + currencyTo.ordinal();
+  }
+
+  /**
+   * Versiones de un par ordenadas por fecha efectiva ascendente. {@code complete} indica que no
+   * existen versiones anteriores a la primera de la ventana.
+   */
+  private static final class PairHistory {
+
+    private final Instant[] effectiveFrom;
+    private final BigDecimal[] rates;
+    private final boolean complete;
+
+    private PairHistory(Instant[] effectiveFrom, BigDecimal[] rates, boolean complete) {
+      this.effectiveFrom = effectiveFrom;
+      this.rates = rates;
+      this.complete = complete;
+    }
+
+    // Posición de la última versión con fecha efectiva <= asOf, o -1 si la ventana no la cubre
+    private int floor(Instant asOf) {
+      int low = 0;
+      int high = effectiveFrom.length - 1;
+      int found = -1;
+      while (low <= high) {
+        int middle = (low + high) >>> 1;
+        if (effectiveFrom[middle].isAfter(asOf)) {
+          high = middle - 1;
+        } else {
+          found = middle;
+          low = middle + 1;
+        }
+      }
+      return found;
+    }
+
+    // Inserta en orden: dos transacciones pueden confirmar en orden distinto al de sus fechas
+    private PairHistory append(Instant instant, BigDecimal rate, int windowSize) {
+      Instant[] nextEffectiveFrom = Arrays.copyOf(effectiveFrom, effectiveFrom.length + 1);
+      BigDecimal[] nextRates = Arrays.copyOf(rates, rates.length + 1);
+      int position = effectiveFrom.length;
+      while (position > 0 && nextEffectiveFrom[position - 1].isAfter(instant)) {
+        nextEffectiveFrom[position] = nextEffectiveFrom[position - 1];
+        nextRates[position] = nextRates[position - 1];
+        position--;
+      }
+      nextEffectiveFrom[position] = instant;
+      nextRates[position] = rate;
+
+      if (nextEffectiveFrom.length <= windowSize) {
+        return new PairHistory(nextEffectiveFrom, nextRates, complete);
+      }
+      int dropped = nextEffectiveFrom.length - windowSize;
+      return new PairHistory(
+          Arrays.copyOfRange(nextEffectiveFrom, dropped, nextEffectiveFrom.length),
+          Arrays.copyOfRange(nextRates, dropped, nextRates.length),
+          false
+      );
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package com.fredgar.pe.business.components;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fredgar.pe.business.dto.ExchangeRateDTO;
+import com.fredgar.pe.business.mapper.ExchangeRateMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Respuestas ya serializadas de los listados de tipos de cambio, calculadas una sola vez por época
+ * de {@link ExchangeRateCache}. Cada cuerpo guarda su variante gzip y un ETag fuerte derivado del
+ * contenido, de modo que un sondeo sin cambios no consulta la base de datos ni vuelve a serializar.
+ */
+@Component
+@RequiredArgsConstructor
+public class ExchangeRateResponseCache {
+
+  private final ExchangeRateCache exchangeRateCache;
+  private final ExchangeRateMapper exchangeRateMapper;
+  private final ObjectMapper objectMapper;
+
+  private final AtomicReference<EpochBodies> current = new AtomicReference<>();
+
+  public SerializedBody all() {
+    return bodies().all();
+  }
+
+  public Optional<SerializedBody> byId(Integer id) {
+    return bodies().byId(id);
+  }
+
+  private EpochBodies bodies() {
+    ExchangeRateCache.Snapshot snapshot = exchangeRateCache.snapshot();
+    EpochBodies bodies = current.get();
+    if (bodies != null && bodies.snapshot == snapshot) {
+      return bodies;
+    }
+    EpochBodies next = new EpochBodies(snapshot);
+    // Nunca se reemplaza una época más reciente por una anterior
+    return current.accumulateAndGet(next, (previous, candidate) ->
+        previous == null || candidate.snapshot.epoch() > previous.snapshot.epoch() ? candidate : previous);
+  }
+
+  private SerializedBody serialize(Object value) {
+    try {
+      byte[] json = objectMapper.writeValueAsBytes(value);
+      return new SerializedBody(json, gzip(json), etag(json));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("No se pudo serializar la respuesta de tipos de cambio", e);
+    }
+  }
+
+  private static byte[] gzip(byte[] content) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2 + 32);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(content);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  private static String etag(byte[] content) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+      return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Cuerpo JSON listo para escribir, con su variante gzip. Cada variante tiene su propio ETag fuerte
+   * porque sus bytes son distintos.
+   */
+  public record SerializedBody(byte[] json, byte[] gzip, String etag) {
+
+    public String gzipEtag() {
+      return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+  }
+
+  private final class EpochBodies {
+
+    private final ExchangeRateCache.Snapshot snapshot;
+    private final ConcurrentMap<Integer, SerializedBody> byId = new ConcurrentHashMap<>();
+    private volatile SerializedBody all;
+
+    private EpochBodies(ExchangeRateCache.Snapshot snapshot) {
+      this.snapshot = snapshot;
+    }
+
+    private SerializedBody all() {
+      SerializedBody body = all;
+      if (body == null) {
+        List<ExchangeRateDTO> rates = snapshot.registered()
+            .stream()
+            .map(exchangeRateMapper::toExchangeRateDTO)
+            .toList();
+        body = serialize(rates);
+        all = body;
+      }
+      return body;
+    }
+
+    // Los ids inexistentes no se guardan, así el mapa solo crece con los tipos registrados
+    private Optional<SerializedBody> byId(Integer id) {
+      return Optional.ofNullable(byId.computeIfAbsent(id, key -> snapshot.registered()
+          .stream()
+          .filter(exchangeRate -> exchangeRate.getId().equals(key))
+          .findFirst()
+          .map(exchangeRate -> serialize(exchangeRateMapper.toExchangeRateDTO(exchangeRate)))
+          .orElse(null)));
+    }
+  }
+}
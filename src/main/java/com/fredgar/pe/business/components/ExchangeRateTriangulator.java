@@ -0,0 +1,80 @@
+package com.fredgar.pe.business.components;
+
+import com.fredgar.pe.business.enums.Currency;
+import com.fredgar.pe.business.model.ExchangeRate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Calcula la tabla completa de tipos de cambio a partir de los registrados. Los pares sin registro
+ * se derivan por inversa (B→A a partir de A→B) o cruzando por una moneda pivote (A→P→B). El cálculo
+ * se hace una sola vez por cada cambio de tipos, así la consulta en cada conversión sigue siendo O(1).
+ */
+@Component
+public class ExchangeRateTriangulator {
+
+  private static final Currency[] VALUES = Currency.values();
+  private static final int CURRENCIES = VALUES.length;
+
+  private final MathContext mathContext;
+  private final Currency[] pivots;
+
+  public ExchangeRateTriangulator(
+      @Value("${application.exchange.triangulation.precision}") int precision,
+      @Value("${application.exchange.triangulation.pivots}") Currency[] pivots) {
+    this.mathContext = new MathContext(precision, RoundingMode.HALF_EVEN);
+    this.pivots = pivots;
+  }
+
+  /**
+   * @param direct tipos registrados indexados por {@code origen * monedas + destino}; no se modifica.
+   * @return tabla con los tipos registrados más los derivados, con el mismo índice.
+   */
+  public ExchangeRate[] resolve(ExchangeRate[] direct) {
+    ExchangeRate[] resolved = direct.clone();
+
+    // Inversas: solo a partir de tipos registrados
+    for (int from = 0; from < CURRENCIES; from++) {
+      for (int to = 0; to < CURRENCIES; to++) {
+        ExchangeRate opposite = direct[to * CURRENCIES + from];
+        if (from != to && resolved[from * CURRENCIES + to] == null && opposite != null) {
+          BigDecimal rate = BigDecimal.ONE.divide(opposite.getRate(), mathContext);
+          resolved[from * CURRENCIES + to] = derived(from, to, rate);
+        }
+      }
+    }
+
+    // Cruces: cada tramo puede ser registrado o inverso, pero no otro cruce
+    ExchangeRate[] legs = resolved.clone();
+    for (Currency pivot : pivots) {
+      int p = pivot.ordinal();
+      for (int from = 0; from < CURRENCIES; from++) {
+        for (int to = 0; to < CURRENCIES; to++) {
+          if (from == to || from == p || to == p || resolved[from * CURRENCIES + to] != null) {
+            continue;
+          }
+          ExchangeRate first = legs[from * CURRENCIES + p];
+          ExchangeRate second = legs[p * CURRENCIES + to];
+          if (first != null && second != null) {
+            BigDecimal rate = first.getRate().multiply(second.getRate(), mathContext);
+            resolved[from * CURRENCIES + to] = derived(from, to, rate);
+          }
+        }
+      }
+    }
+    return resolved;
+  }
+
+  // Los tipos derivados no tienen id porque no existen en la base de datos
+  private static ExchangeRate derived(int from, int to, BigDecimal rate) {
+    ExchangeRate exchangeRate = new ExchangeRate();
+    exchangeRate.setCurrencyFrom(VALUES[from]);
+    exchangeRate.setCurrencyTo(VALUES[to]);
+    exchangeRate.setRate(rate);
+    return exchangeRate;
+  }
+}
@@ -0,0 +1,27 @@
+package com.fredgar.pe.business.components;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Publica cambios en memoria solo cuando la transacción que los originó confirma.
+ * Sin transacción activa la acción se ejecuta de inmediato.
+ */
+final class TransactionCallbacks {
+
+  private TransactionCallbacks() {
+  }
+
+  static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        action.run();
+      }
+    });
+  }
+}
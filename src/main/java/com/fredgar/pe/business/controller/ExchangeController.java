@@ -1,25 +1,40 @@
 package com.fredgar.pe.business.controller;
 
+import com.fredgar.pe.business.components.ExchangeRateResponseCache;
+import com.fredgar.pe.business.components.ExchangeRateResponseCache.SerializedBody;
+import com.fredgar.pe.business.dto.ExchangeBatchItemDTO;
+import com.fredgar.pe.business.dto.ExchangeRateCacheStatsDTO;
 import com.fredgar.pe.business.dto.ExchangeRateDTO;
+import com.fredgar.pe.business.dto.ExchangeRateImportResultDTO;
 import com.fredgar.pe.business.dto.ExchangeRequestDTO;
 import com.fredgar.pe.business.dto.ExchangeResponseDTO;
 import com.fredgar.pe.business.exception.ApiError;
+import com.fredgar.pe.business.service.ExchangeRateImportService;
 import com.fredgar.pe.business.service.ExchangeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
 import java.net.URI;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 @Tag(name = "Exchange Rate Controller")
@@ -29,10 +44,13 @@ import java.util.Optional;
 public class ExchangeController {
 
   private final ExchangeService exchangeService;
+  private final ExchangeRateImportService exchangeRateImportService;
+  private final ExchangeRateResponseCache exchangeRateResponseCache;
 
   @Operation(
       summary = "Convierte una moneda a otra",
-      description = "Este endpoint permite convertir una cantidad de una moneda a otra según el tipo de cambio actual."
+      description = "Este endpoint permite convertir una cantidad de una moneda a otra según el tipo de cambio actual, "
+          + "o según el vigente en fechaEfectiva cuando se indica."
   )
   @ApiResponse(
       responseCode = "200",
@@ -59,6 +77,51 @@ public class ExchangeController {
     return ResponseEntity.ok(response);
   }
 
+  @Operation(
+      summary = "Convierte un lote de montos",
+      description = "Este endpoint convierte cada línea del lote con una misma instantánea de tipos de cambio. "
+          + "Las líneas inválidas devuelven sus errores en la misma posición sin interrumpir el resto del lote."
+  )
+  @ApiResponse(
+      responseCode = "200",
+      description = "Lote procesado",
+      content = @Content(array = @ArraySchema(schema = @Schema(implementation = ExchangeBatchItemDTO.class)))
+  )
+  @ApiResponse(
+      responseCode = "400",
+      description = "Solicitud mal formada",
+      content = @Content(schema = @Schema(implementation = ApiError.class))
+  )
+  @PostMapping("/convert/batch")
+  @PreAuthorize("hasRole('ADMIN')")
+  public ResponseEntity<List<ExchangeBatchItemDTO>> convertCurrencyBatch(
+      @Parameter(description = "Líneas de conversión de moneda")
+      @RequestBody List<ExchangeRequestDTO> requests) {
+    return ResponseEntity.ok(exchangeService.convertCurrencyBatch(requests));
+  }
+
+  @Operation(
+      summary = "Convierte un archivo de montos en flujo continuo",
+      description = "Este endpoint lee un cuerpo NDJSON o CSV (con cabecera monto,monedaOrigen,monedaDestino y opcionalmente fechaEfectiva) línea a línea "
+          + "y devuelve cada conversión como NDJSON a medida que se procesa. La última línea es un resumen con el total "
+          + "de filas, errores y filas por segundo."
+  )
+  @ApiResponse(
+      responseCode = "200",
+      description = "Archivo procesado",
+      content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = ExchangeBatchItemDTO.class))
+  )
+  @PostMapping(value = "/convert/stream", consumes = {"application/x-ndjson", "text/csv"}, produces = "application/x-ndjson")
+  @PreAuthorize("hasRole('ADMIN')")
+  public void convertCurrencyStream(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    response.setContentType("application/x-ndjson");
+    exchangeService.convertCurrencyStream(
+        request.getInputStream(),
+        MediaType.parseMediaType(request.getContentType()),
+        response.getOutputStream()
+    );
+  }
+
   @Operation(
       description = "Crea un nuevo tipo de cambio",
       summary = "Método que permite crear un nuevo tipo de cambio"
@@ -73,6 +136,11 @@ public class ExchangeController {
       description = "Tipo de cambio no encontrado",
       content = @Content(schema = @Schema(implementation = ApiError.class))
   )
+  @ApiResponse(
+      responseCode = "409",
+      description = "Ya existe un tipo de cambio para el par",
+      content = @Content(schema = @Schema(implementation = ApiError.class))
+  )
   @PostMapping("/create")
   @PreAuthorize("hasRole('ADMIN')")
   public ResponseEntity<Optional<ExchangeRateDTO>> createExchangeRate(@RequestBody @Valid ExchangeRateDTO request) {
@@ -85,6 +153,29 @@ public class ExchangeController {
     return ResponseEntity.created(location).body(response);
   }
 
+  @Operation(
+      description = "Importa una hoja de tipos de cambio",
+      summary = "Método que permite crear o actualizar muchos tipos de cambio en una sola operación. "
+          + "Acepta un arreglo JSON o un CSV con cabecera monedaOrigen,monedaDestino,tipoCambio; "
+          + "cada par se inserta si no existe o se actualiza si ya existe."
+  )
+  @ApiResponse(
+      responseCode = "200",
+      description = "Hoja procesada",
+      content = @Content(schema = @Schema(implementation = ExchangeRateImportResultDTO.class))
+  )
+  @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+  @PreAuthorize("hasRole('ADMIN')")
+  public ResponseEntity<ExchangeRateImportResultDTO> importExchangeRates(@RequestBody List<ExchangeRateDTO> request) {
+    return ResponseEntity.ok(exchangeRateImportService.importExchangeRates(request));
+  }
+
+  @PostMapping(value = "/import", consumes = "text/csv")
+  @PreAuthorize("hasRole('ADMIN')")
+  public ResponseEntity<ExchangeRateImportResultDTO> importExchangeRatesCsv(HttpServletRequest request) throws IOException {
+    return ResponseEntity.ok(exchangeRateImportService.importExchangeRates(request.getInputStream()));
+  }
+
   @Operation(
       description = "Actualiza un tipo de cambio",
       summary = "Método que permite actualizar un tipo de cambio"
@@ -99,6 +190,11 @@ public class ExchangeController {
       description = "Tipo de cambio no encontrado",
       content = @Content(schema = @Schema(implementation = ApiError.class))
   )
+  @ApiResponse(
+      responseCode = "409",
+      description = "El tipo de cambio fue modificado por otra solicitud",
+      content = @Content(schema = @Schema(implementation = ApiError.class))
+  )
   @PutMapping("/update/{id}")
   @PreAuthorize("hasRole('ADMIN')")
   public ResponseEntity<Optional<ExchangeRateDTO>> updateExchangeRate(@PathVariable Integer id, @RequestBody @Valid ExchangeRateDTO request) {
@@ -112,7 +208,12 @@ public class ExchangeController {
       responses = {
           @io.swagger.v3.oas.annotations.responses.ApiResponse(
               description = "Success",
-              responseCode = "200"
+              responseCode = "200",
+              content = @Content(array = @ArraySchema(schema = @Schema(implementation = ExchangeRateDTO.class)))
+          ),
+          @io.swagger.v3.oas.annotations.responses.ApiResponse(
+              description = "Not Modified",
+              responseCode = "304"
           ),
           @io.swagger.v3.oas.annotations.responses.ApiResponse(
               description = "Bad Request",
@@ -121,11 +222,12 @@ public class ExchangeController {
       }
 
   )
-  @GetMapping("/all")
+  @GetMapping(value = "/all", produces = MediaType.APPLICATION_JSON_VALUE)
   @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
-  public ResponseEntity<List<ExchangeRateDTO>> getAllExchangeRates() {
-    List<ExchangeRateDTO> exchangeRates = exchangeService.findAll();
-    return ResponseEntity.ok(exchangeRates);
+  public ResponseEntity<byte[]> getAllExchangeRates(
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+    return serialized(exchangeRateResponseCache.all(), ifNoneMatch, acceptEncoding);
   }
 
   @Operation(
@@ -134,7 +236,12 @@ public class ExchangeController {
       responses = {
           @io.swagger.v3.oas.annotations.responses.ApiResponse(
               description = "Success",
-              responseCode = "200"
+              responseCode = "200",
+              content = @Content(schema = @Schema(implementation = ExchangeRateDTO.class))
+          ),
+          @io.swagger.v3.oas.annotations.responses.ApiResponse(
+              description = "Not Modified",
+              responseCode = "304"
           ),
           @io.swagger.v3.oas.annotations.responses.ApiResponse(
               description = "Bad Request",
@@ -143,15 +250,97 @@ public class ExchangeController {
       }
 
   )
-  @GetMapping("/{id}")
-  public ResponseEntity<ExchangeRateDTO> findById(@PathVariable Integer id) {
-    Optional<ExchangeRateDTO> optionalExchangeRateDTO = exchangeService.findById(id);
-    if (optionalExchangeRateDTO.isPresent()) {
-      return ResponseEntity.ok(optionalExchangeRateDTO.get());
-    } else {
-      return ResponseEntity.notFound().build();
+  @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<byte[]> findById(
+      @PathVariable Integer id,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+    return exchangeRateResponseCache.byId(id)
+        .map(body -> serialized(body, ifNoneMatch, acceptEncoding))
+        .orElseGet(() -> ResponseEntity.notFound().build());
+  }
+
+  @Operation(
+      description = "Obtiene las métricas de la caché de tipos de cambio",
+      summary = "Método que permite consultar aciertos, fallos y tamaño de la caché de tipos de cambio"
+  )
+  @GetMapping("/cache/stats")
+  @PreAuthorize("hasRole('ADMIN')")
+  public ResponseEntity<ExchangeRateCacheStatsDTO> getCacheStats() {
+    return ResponseEntity.ok(exchangeService.cacheStats());
+  }
+
+  /**
+   * Responde el cuerpo ya serializado: 304 si el cliente tiene la misma versión y, si acepta gzip,
+   * la variante comprimida con su propio ETag. {@code no-cache} permite guardar la respuesta pero
+   * obliga a revalidarla con el ETag; sin él Spring Security agrega {@code no-store} y el cliente
+   * nunca envía {@code If-None-Match}.
+   */
+  private static ResponseEntity<byte[]> serialized(SerializedBody body, String ifNoneMatch, String acceptEncoding) {
+    boolean gzip = acceptsGzip(acceptEncoding);
+    String etag = gzip ? body.gzipEtag() : body.etag();
+
+    if (ifNoneMatch != null && matches(ifNoneMatch, body)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .eTag(etag)
+          .cacheControl(CacheControl.noCache().cachePrivate())
+          .varyBy(HttpHeaders.ACCEPT_ENCODING)
+          .build();
+    }
+
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .eTag(etag)
+        .cacheControl(CacheControl.noCache().cachePrivate())
+        .varyBy(HttpHeaders.ACCEPT_ENCODING);
+    if (gzip) {
+      return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
     }
+    return response.body(body.json());
   }
 
+  // gzip se acepta si aparece, o si aparece *, con un q distinto de cero; "gzip;q=0" lo rechaza
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    Boolean wildcard = null;
+    for (String candidate : acceptEncoding.split(",")) {
+      String[] parts = candidate.split(";");
+      String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+      boolean accepted = true;
+      for (int i = 1; i < parts.length; i++) {
+        String parameter = parts[i].trim().toLowerCase(Locale.ROOT);
+        if (parameter.startsWith("q=")) {
+          try {
+            accepted = Double.parseDouble(parameter.substring(2)) > 0;
+          } catch (NumberFormatException e) {
+            accepted = false;
+          }
+        }
+      }
+      if (coding.equals("gzip") || coding.equals("x-gzip")) {
+        return accepted;
+      }
+      if (coding.equals("*")) {
+        wildcard = accepted;
+      }
+    }
+    return Boolean.TRUE.equals(wildcard);
+  }
+
+  // Ambas variantes representan el mismo contenido, así que cualquiera de sus ETags valida la caché
+  private static boolean matches(String ifNoneMatch, SerializedBody body) {
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals("*") || tag.equals(body.etag()) || tag.equals(body.gzipEtag())) {
+        return true;
+      }
+    }
+    return false;
+  }
 
 }
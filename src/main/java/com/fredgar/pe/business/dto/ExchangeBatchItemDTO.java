@@ -0,0 +1,17 @@
+package com.fredgar.pe.business.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ExchangeBatchItemDTO(
+    @JsonProperty("indice")
+    int index, // posición de la línea en la solicitud
+    @JsonProperty("resultado")
+    ExchangeResponseDTO result, // conversión, si la línea fue válida
+    @JsonProperty("errores")
+    List<String> errors // errores de la línea, si los hubo
+) {
+}
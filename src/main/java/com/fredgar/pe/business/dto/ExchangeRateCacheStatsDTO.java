@@ -0,0 +1,17 @@
+package com.fredgar.pe.business.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record ExchangeRateCacheStatsDTO(
+    @JsonProperty("epoca")
+    long epoch, // época de la instantánea vigente
+    @JsonProperty("aciertos")
+    long hits, // lecturas resueltas desde la caché
+    @JsonProperty("fallos")
+    long misses, // lecturas sin tipo de cambio en la caché
+    @JsonProperty("tamanio")
+    int size, // pares de monedas registrados
+    @JsonProperty("resueltos")
+    int resolved // pares disponibles, incluidos los derivados
+) {
+}
@@ -20,4 +20,6 @@ public record ExchangeRateDTO(
     @JsonProperty("tipoCambio")
     @NotNull(message = "El tipo de cambio no puede ser nulo")
     @DecimalMin(value = "0.0", inclusive = false, message = "El tipo de cambio debe ser mayor que cero")
-    BigDecimal rate) {}
+    BigDecimal rate,
+    @JsonProperty("version")
+    Long version) {}
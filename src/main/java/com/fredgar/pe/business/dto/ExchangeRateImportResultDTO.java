@@ -0,0 +1,17 @@
+package com.fredgar.pe.business.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public record ExchangeRateImportResultDTO(
+    @JsonProperty("insertados")
+    int inserted, // pares nuevos
+    @JsonProperty("actualizados")
+    int updated, // pares existentes cuyo tipo de cambio se reemplazó
+    @JsonProperty("rechazados")
+    int rejected, // líneas no importadas
+    @JsonProperty("errores")
+    List<ExchangeBatchItemDTO> errors // detalle de cada línea rechazada
+) {
+}
@@ -6,6 +6,7 @@ import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 public record ExchangeRequestDTO(
     @JsonProperty("monto")
@@ -19,6 +20,9 @@ public record ExchangeRequestDTO(
 
     @JsonProperty("monedaDestino")
     @NotNull(message = "La moneda de destino es obligatoria.")
-    Currency currencyTo
+    Currency currencyTo,
+
+    @JsonProperty("fechaEfectiva")
+    Instant asOf // opcional: convierte con el tipo vigente en esa fecha en lugar del actual
 ) {
 }
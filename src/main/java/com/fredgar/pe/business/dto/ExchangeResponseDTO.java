@@ -1,5 +1,6 @@
 package com.fredgar.pe.business.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fredgar.pe.business.enums.Currency;
 
@@ -15,6 +16,9 @@ public record ExchangeResponseDTO(
     @JsonProperty("monedaDestino")
     Currency currencyTo, // moneda de destino
     @JsonProperty("tipoCambio")
-    BigDecimal rate // tipo de cambio
+    BigDecimal rate, // tipo de cambio
+    @JsonProperty("epoca")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Long epoch // época de la instantánea de tipos de cambio; nula si se usó el historial
 ) {
 }
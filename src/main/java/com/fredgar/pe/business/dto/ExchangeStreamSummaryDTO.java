@@ -0,0 +1,17 @@
+package com.fredgar.pe.business.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record ExchangeStreamSummaryDTO(
+    @JsonProperty("filas")
+    long rows, // líneas leídas
+    @JsonProperty("convertidas")
+    long converted, // líneas convertidas correctamente
+    @JsonProperty("errores")
+    long errors, // líneas con errores
+    @JsonProperty("duracionMs")
+    long elapsedMillis, // tiempo total de procesamiento
+    @JsonProperty("filasPorSegundo")
+    double rowsPerSecond // rendimiento del procesamiento
+) {
+}
@@ -1,6 +1,16 @@
 package com.fredgar.pe.business.enums;
 
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.math.RoundingMode;
+
+@Getter
+@RequiredArgsConstructor
 public enum Currency {
-  USD,
-  PEN
+  USD(2, RoundingMode.HALF_EVEN),
+  PEN(2, RoundingMode.HALF_EVEN);
+
+  private final int minorUnits; // decimales con los que se liquida un monto en la moneda
+  private final RoundingMode roundingMode; // redondeo aplicado al liquidar
 }
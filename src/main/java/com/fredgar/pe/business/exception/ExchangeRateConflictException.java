@@ -0,0 +1,18 @@
+package com.fredgar.pe.business.exception;
+
+import com.fredgar.pe.business.enums.Currency;
+import lombok.Getter;
+
+@Getter
+public class ExchangeRateConflictException extends RuntimeException {
+
+  private final Currency currencyFrom;
+  private final Currency currencyTo;
+
+  public ExchangeRateConflictException(String message, Currency currencyFrom, Currency currencyTo, Throwable cause) {
+    super(message, cause);
+    this.currencyFrom = currencyFrom;
+    this.currencyTo = currencyTo;
+  }
+
+}
@@ -10,9 +10,13 @@ public class ExchangeRateNotFoundException extends RuntimeException {
   private final Currency currencyTo;
 
   public ExchangeRateNotFoundException(Currency currencyFrom, Currency currencyTo) {
-    super(String.format("Tipo de cambio no encontrado para las monedas: %s a %s", currencyFrom, currencyTo));
+    super(messageFor(currencyFrom, currencyTo));
     this.currencyFrom = currencyFrom;
     this.currencyTo = currencyTo;
   }
 
+  public static String messageFor(Currency currencyFrom, Currency currencyTo) {
+    return String.format("Tipo de cambio no encontrado para las monedas: %s a %s", currencyFrom, currencyTo);
+  }
+
 }
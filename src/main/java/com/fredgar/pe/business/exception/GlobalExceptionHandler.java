@@ -1,8 +1,15 @@
 package com.fredgar.pe.business.exception;
 
 import com.fredgar.pe.business.components.ErrorPropertiesBuilder;
+import com.fredgar.pe.security.auth.EmailAlreadyRegisteredException;
+import com.fredgar.pe.security.auth.InvalidRefreshTokenException;
+import com.fredgar.pe.security.auth.LoginLockedException;
+import com.fredgar.pe.security.config.PasswordHashingUnavailableException;
+import com.fredgar.pe.security.user.UserProvisioningBusyException;
+import com.fredgar.pe.security.user.UserProvisioningException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -74,6 +81,150 @@ public class GlobalExceptionHandler {
     return ResponseEntity.status(apiError.getStatus()).body(apiError);
   }
 
+  @ExceptionHandler(ExchangeRateConflictException.class)
+  public ResponseEntity<ApiError> handleExchangeRateConflictException(ExchangeRateConflictException ex) {
+    URI errorType = URI.create(errorDocumentationBaseUrl + "/errors#conflict");
+    URI instance = ServletUriComponentsBuilder.fromCurrentRequestUri().build().toUri();
+    Map<String, Object> properties = buildErrorProperties.buildErrorProperties();
+    String errorDetail = String.format(
+        "El tipo de cambio de '%s' a '%s' fue creado o modificado por otra solicitud. Consulte su valor actual y vuelva a intentarlo.",
+        ex.getCurrencyFrom(), ex.getCurrencyTo()
+    );
+    ApiError apiError = ApiError.create(
+        errorType,
+        "Conflicto en el Tipo de Cambio",
+        HttpStatus.CONFLICT,
+        ex.getMessage(),
+        instance,
+        properties,
+        "CONFLICT",
+        "El tipo de cambio no pudo guardarse porque entra en conflicto con su estado actual.",
+        errorDetail
+    );
+    return ResponseEntity.status(apiError.getStatus()).body(apiError);
+  }
+
+  @ExceptionHandler(PasswordHashingUnavailableException.class)
+  public ResponseEntity<ApiError> handlePasswordHashingUnavailableException(PasswordHashingUnavailableException ex) {
+    HttpStatus status = ex.isSaturated() ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE;
+    URI errorType = URI.create(errorDocumentationBaseUrl + (ex.isSaturated() ? "/errors#too-many-requests" : "/errors#service-unavailable"));
+    URI instance = ServletUriComponentsBuilder.fromCurrentRequestUri().build().toUri();
+    Map<String, Object> properties = buildErrorProperties.buildErrorProperties();
+    ApiError apiError = ApiError.create(
+        errorType,
+        ex.isSaturated() ? "Demasiadas Solicitudes" : "Servicio No Disponible",
+        status,
+        ex.getMessage(),
+        instance,
+        properties,
+        status.name(),
+        "El servidor está procesando demasiadas operaciones de contraseña.",
+        "Espere unos segundos y vuelva a intentarlo."
+    );
+    return ResponseEntity.status(apiError.getStatus())
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body(apiError);
+  }
+
+  @ExceptionHandler(LoginLockedException.class)
+  public ResponseEntity<ApiError> handleLoginLockedException(LoginLockedException ex) {
+    URI errorType = URI.create(errorDocumentationBaseUrl + "/errors#too-many-requests");
+    URI instance = ServletUriComponentsBuilder.fromCurrentRequestUri().build().toUri();
+    Map<String, Object> properties = buildErrorProperties.buildErrorProperties();
+    ApiError apiError = ApiError.create(
+        errorType,
+        "Demasiadas Solicitudes",
+        HttpStatus.TOO_MANY_REQUESTS,
+        ex.getMessage(),
+        instance,
+        properties,
+        HttpStatus.TOO_MANY_REQUESTS.name(),
+        "El inicio de sesión está bloqueado temporalmente por intentos fallidos.",
+        String.format("Vuelva a intentarlo en %d segundos.", ex.getRetryAfterSeconds())
+    );
+    return ResponseEntity.status(apiError.getStatus())
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+        .body(apiError);
+  }
+
+  @ExceptionHandler(InvalidRefreshTokenException.class)
+  public ResponseEntity<ApiError> handleInvalidRefreshTokenException(InvalidRefreshTokenException ex) {
+    URI errorType = URI.create(errorDocumentationBaseUrl + "/errors#unauthorized");
+    URI instance = ServletUriComponentsBuilder.fromCurrentRequestUri().build().toUri();
+    Map<String, Object> properties = buildErrorProperties.buildErrorProperties();
+    ApiError apiError = ApiError.create(
+        errorType,
+        "No Autorizado",
+        HttpStatus.UNAUTHORIZED,
+        ex.getMessage(),
+        instance,
+        properties,
+        HttpStatus.UNAUTHORIZED.name(),
+        "El token de actualización no puede emitir nuevos tokens.",
+        "Inicie sesión nuevamente para obtener un nuevo token de actualización."
+    );
+    return ResponseEntity.status(apiError.getStatus()).body(apiError);
+  }
+
+  @ExceptionHandler(EmailAlreadyRegisteredException.class)
+  public ResponseEntity<ApiError> handleEmailAlreadyRegisteredException(EmailAlreadyRegisteredException ex) {
+    URI errorType = URI.create(errorDocumentationBaseUrl + "/errors#conflict");
+    URI instance = ServletUriComponentsBuilder.fromCurrentRequestUri().build().toUri();
+    Map<String, Object> properties = buildErrorProperties.buildErrorProperties();
+    ApiError apiError = ApiError.create(
+        errorType,
+        "Email Ya Registrado",
+        HttpStatus.CONFLICT,
+        ex.getMessage(),
+        instance,
+        properties,
+        HttpStatus.CONFLICT.name(),
+        "No se pudo registrar el usuario porque el email ya pertenece a otra cuenta.",
+        "Inicie sesión con ese email o regístrese con uno diferente."
+    );
+    return ResponseEntity.status(apiError.getStatus()).body(apiError);
+  }
+
+  @ExceptionHandler(UserProvisioningException.class)
+  public ResponseEntity<ApiError> handleUserProvisioningException(UserProvisioningException ex) {
+    URI errorType = URI.create(errorDocumentationBaseUrl + "/errors#bad-request");
+    URI instance = ServletUriComponentsBuilder.fromCurrentRequestUri().build().toUri();
+    Map<String, Object> properties = buildErrorProperties.buildErrorProperties();
+    ApiError apiError = ApiError.create(
+        errorType,
+        "Solicitud Mal Formada",
+        HttpStatus.BAD_REQUEST,
+        ex.getMessage(),
+        instance,
+        properties,
+        HttpStatus.BAD_REQUEST.name(),
+        "El alta masiva de usuarios no pudo procesarse.",
+        "Divida el lote o corrija la solicitud y vuelva a intentarlo."
+    );
+    return ResponseEntity.status(apiError.getStatus()).body(apiError);
+  }
+
+  @ExceptionHandler(UserProvisioningBusyException.class)
+  public ResponseEntity<ApiError> handleUserProvisioningBusyException(UserProvisioningBusyException ex) {
+    URI errorType = URI.create(errorDocumentationBaseUrl + "/errors#too-many-requests");
+    URI instance = ServletUriComponentsBuilder.fromCurrentRequestUri().build().toUri();
+    Map<String, Object> properties = buildErrorProperties.buildErrorProperties();
+    ApiError apiError = ApiError.create(
+        errorType,
+        "Demasiadas Solicitudes",
+        HttpStatus.TOO_MANY_REQUESTS,
+        ex.getMessage(),
+        instance,
+        properties,
+        HttpStatus.TOO_MANY_REQUESTS.name(),
+        "El servidor está procesando el número máximo de altas masivas.",
+        "Espere a que termine un lote en curso y vuelva a intentarlo."
+    );
+    return ResponseEntity.status(apiError.getStatus())
+        .header(HttpHeaders.RETRY_AFTER, "5")
+        .body(apiError);
+  }
+
   @ExceptionHandler(HttpMessageNotReadableException.class)
   public ResponseEntity<ApiError> handleHttpMessageNotReadableException(HttpMessageNotReadableException ex) {
     String errorMessage = ex.getMessage();
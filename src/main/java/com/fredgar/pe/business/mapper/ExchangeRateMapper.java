@@ -10,20 +10,23 @@ import org.mapstruct.Mappings;
 
 import java.math.BigDecimal;
 
-@Mapper(componentModel = MappingConstants.ComponentModel.SPRING)
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, imports = FixedPointMoney.class)
 public interface ExchangeRateMapper {
 
   @Mappings({
       @Mapping(target = "amount", source = "amount"),
-      @Mapping(target = "exchangedAmount", expression = "java(amount.multiply(exchangeRate.getRate()))"),
+      @Mapping(target = "exchangedAmount", expression = "java(FixedPointMoney.convert(amount, exchangeRate.getRate(), exchangeRate.getCurrencyTo()))"),
       @Mapping(target = "currencyFrom", source = "exchangeRate.currencyFrom"),
       @Mapping(target = "currencyTo", source = "exchangeRate.currencyTo"),
-      @Mapping(target = "rate", source = "exchangeRate.rate")
+      @Mapping(target = "rate", source = "exchangeRate.rate"),
+      @Mapping(target = "epoch", source = "epoch")
   })
-  ExchangeResponseDTO toResponseDTO(ExchangeRate exchangeRate, BigDecimal amount);
+  ExchangeResponseDTO toResponseDTO(ExchangeRate exchangeRate, BigDecimal amount, Long epoch);
 
   ExchangeRateDTO toExchangeRateDTO(ExchangeRate exchangeRate);
 
+  // La versión la asigna Hibernate; un valor enviado por el cliente haría que save() intente un merge
+  @Mapping(target = "version", ignore = true)
   ExchangeRate toExchangeRate(ExchangeRateDTO exchangeRateDTO);
 
 }
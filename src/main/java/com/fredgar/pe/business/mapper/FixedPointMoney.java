@@ -0,0 +1,95 @@
+package com.fredgar.pe.business.mapper;
+
+import com.fredgar.pe.business.enums.Currency;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversión de montos en punto fijo sobre {@code long}. El monto liquidado se calcula con las
+ * cifras sin escala del monto y del tipo de cambio y se redondea a los decimales de la moneda
+ * destino; solo se recurre a {@link BigDecimal} cuando el cálculo desbordaría un {@code long}.
+ */
+public final class FixedPointMoney {
+
+  private static final int MAX_LONG_DIGITS = 18;
+  private static final long[] POWERS_OF_TEN = new long[MAX_LONG_DIGITS + 1];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  private FixedPointMoney() {
+  }
+
+  /**
+   * @return {@code amount * rate} con la escala y el redondeo de {@code currencyTo}.
+   */
+  public static BigDecimal convert(BigDecimal amount, BigDecimal rate, Currency currencyTo) {
+    int minorUnits = currencyTo.getMinorUnits();
+    RoundingMode roundingMode = currencyTo.getRoundingMode();
+
+    if (amount.precision() > MAX_LONG_DIGITS || rate.precision() > MAX_LONG_DIGITS) {
+      return amount.multiply(rate).setScale(minorUnits, roundingMode);
+    }
+
+    try {
+      long product = Math.multiplyExact(unscaled(amount), unscaled(rate));
+      int shift = amount.scale() + rate.scale() - minorUnits;
+
+      if (Math.abs(shift) > MAX_LONG_DIGITS) {
+        throw new ArithmeticException("long overflow");
+      }
+
+      long settled;
+      if (shift > 0) {
+        settled = divide(product, shift, roundingMode);
+      } else if (shift < 0) {
+        settled = Math.multiplyExact(product, POWERS_OF_TEN[-shift]);
+      } else {
+        settled = product;
+      }
+      return BigDecimal.valueOf(settled, minorUnits);
+    } catch (ArithmeticException e) {
+      // Desborde del long: se mantiene el resultado exacto con BigDecimal
+      return amount.multiply(rate).setScale(minorUnits, roundingMode);
+    }
+  }
+
+  // Con precisión de hasta 18 dígitos BigDecimal guarda la cifra sin escala en un long: moverla a
+  // escala cero la lee sin crear el BigInteger que devolvería unscaledValue()
+  private static long unscaled(BigDecimal value) {
+    return value.movePointRight(value.scale()).longValueExact();
+  }
+
+  private static long divide(long dividend, int exponent, RoundingMode roundingMode) {
+    long divisor = POWERS_OF_TEN[exponent];
+    long quotient = dividend / divisor;
+    long remainder = dividend % divisor;
+    if (remainder == 0) {
+      return quotient;
+    }
+    int comparedToHalf = Long.compare(Math.abs(remainder), divisor - Math.abs(remainder));
+    return round(quotient, comparedToHalf, roundingMode, dividend);
+  }
+
+  // Ajusta el cociente truncado según el modo de redondeo; comparedToHalf indica si el resto
+  // descartado es menor (<0), igual (0) o mayor (>0) que la mitad de la unidad mínima
+  private static long round(long quotient, int comparedToHalf, RoundingMode roundingMode, long dividend) {
+    int sign = dividend < 0 ? -1 : 1;
+    boolean increment = switch (roundingMode) {
+      case UP -> true;
+      case DOWN -> false;
+      case CEILING -> sign > 0;
+      case FLOOR -> sign < 0;
+      case HALF_UP -> comparedToHalf >= 0;
+      case HALF_DOWN -> comparedToHalf > 0;
+      case HALF_EVEN -> comparedToHalf > 0 || (comparedToHalf == 0 && (quotient & 1) != 0);
+      case UNNECESSARY -> throw new ArithmeticException("Rounding necessary");
+    };
+    return increment ? quotient + sign : quotient;
+  }
+}
@@ -12,6 +12,10 @@ import java.math.BigDecimal;
 @Getter
 @Setter
 @Entity(name = "exchange_rate")
+@Table(uniqueConstraints = @UniqueConstraint(
+    name = "uk_exchange_rate_pair",
+    columnNames = {"currency_from", "currency_to"}
+))
 public class ExchangeRate {
 
   @Id
@@ -19,16 +23,19 @@ public class ExchangeRate {
   private Integer id;
 
   @Enumerated(EnumType.STRING)
-  @Column(name = "currency_from",length = 3)
+  @Column(name = "currency_from", length = 3, nullable = false)
   @NotNull
   private Currency currencyFrom; // moneda de origen
 
   @Enumerated(EnumType.STRING)
-  @Column(name = "currency_to" ,length = 3)
+  @Column(name = "currency_to", length = 3, nullable = false)
   @NotNull
   private Currency currencyTo; // moneda de destino
 
   @Positive
   private BigDecimal rate; // tipo de cambio
 
+  @Version
+  private Long version; // control de concurrencia optimista
+
 }
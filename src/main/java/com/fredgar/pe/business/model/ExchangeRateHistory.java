@@ -0,0 +1,44 @@
+package com.fredgar.pe.business.model;
+
+import com.fredgar.pe.business.enums.Currency;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Getter
+@Setter
+@Entity(name = "exchange_rate_history")
+@Table(indexes = @Index(
+    name = "idx_exchange_rate_history_pair_effective",
+    columnList = "currency_from, currency_to, effective_from"
+))
+public class ExchangeRateHistory {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "currency_from", length = 3, nullable = false, updatable = false)
+  @NotNull
+  private Currency currencyFrom; // moneda de origen
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "currency_to", length = 3, nullable = false, updatable = false)
+  @NotNull
+  private Currency currencyTo; // moneda de destino
+
+  @Positive
+  @Column(updatable = false)
+  private BigDecimal rate; // tipo de cambio vigente desde effectiveFrom; null cierra el par desde esa fecha
+
+  @Column(name = "effective_from", nullable = false, updatable = false)
+  @NotNull
+  private Instant effectiveFrom; // instante desde el que aplica el tipo de cambio
+
+}
@@ -0,0 +1,20 @@
+package com.fredgar.pe.business.repository;
+
+import com.fredgar.pe.business.enums.Currency;
+import com.fredgar.pe.business.model.ExchangeRateHistory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface ExchangeRateHistoryRepository extends JpaRepository<ExchangeRateHistory, Long> {
+
+  Optional<ExchangeRateHistory> findFirstByCurrencyFromAndCurrencyToAndEffectiveFromLessThanEqualOrderByEffectiveFromDesc(
+      Currency currencyFrom, Currency currencyTo, Instant asOf);
+
+  List<ExchangeRateHistory> findByCurrencyFromAndCurrencyToOrderByEffectiveFromDesc(
+      Currency currencyFrom, Currency currencyTo, Pageable pageable);
+
+}
@@ -0,0 +1,74 @@
+package com.fredgar.pe.business.repository;
+
+import com.fredgar.pe.business.enums.Currency;
+import com.fredgar.pe.business.model.ExchangeRate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Escrituras masivas de tipos de cambio con lotes JDBC. Con {@code GenerationType.IDENTITY}
+ * Hibernate no agrupa inserciones, así que la importación escribe directamente con
+ * {@link JdbcTemplate#batchUpdate(String, List)}: una sentencia preparada y un solo lote por operación.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ExchangeRateJdbcRepository {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Inserta o actualiza cada par con una sentencia {@code MERGE ... USING ... ON} estándar sobre las
+   * columnas de {@code uk_exchange_rate_pair}: un par existente recibe el nuevo tipo y una versión más,
+   * y uno nuevo se inserta con la versión 0. Si otro proceso inserta el mismo par a la vez, el índice
+   * único rechaza una de las dos inserciones con {@link org.springframework.dao.DataIntegrityViolationException}.
+   * <p>
+   * Debe llamarse dentro de una transacción: los conteos se leen después de escribir, cuando las filas
+   * del lote ya están bloqueadas por ella.
+   *
+   * @return número de pares insertados; el resto del lote fueron actualizaciones.
+   */
+  public int batchUpsert(List<ExchangeRate> exchangeRates) {
+    jdbcTemplate.batchUpdate(
+        """
+            merge into exchange_rate t
+            using (select cast(? as varchar(3)) as currency_from, cast(? as varchar(3)) as currency_to) s
+            on t.currency_from = s.currency_from and t.currency_to = s.currency_to
+            when matched then update set rate = ?, version = t.version + 1
+            when not matched then insert (currency_from, currency_to, rate, version) values (s.currency_from, s.currency_to, ?, 0)
+            """,
+        exchangeRates.stream()
+            .map(e -> new Object[]{e.getCurrencyFrom().name(), e.getCurrencyTo().name(), e.getRate(), e.getRate()})
+            .toList()
+    );
+    // Una fila del lote en la versión 0 la insertó esta transacción; una actualizada tiene al menos la 1
+    Map<Currency, Set<Currency>> inserted = new EnumMap<>(Currency.class);
+    jdbcTemplate.query("select currency_from, currency_to from exchange_rate where version = 0", (RowCallbackHandler) rs -> {
+      inserted.computeIfAbsent(Currency.valueOf(rs.getString(1)), c -> EnumSet.noneOf(Currency.class))
+          .add(Currency.valueOf(rs.getString(2)));
+    });
+    return (int) exchangeRates.stream()
+        .filter(e -> inserted.getOrDefault(e.getCurrencyFrom(), Set.of()).contains(e.getCurrencyTo()))
+        .count();
+  }
+
+  public void batchInsertHistory(List<ExchangeRate> exchangeRates, Instant effectiveFrom) {
+    OffsetDateTime timestamp = effectiveFrom.atOffset(ZoneOffset.UTC);
+    jdbcTemplate.batchUpdate(
+        "insert into exchange_rate_history (currency_from, currency_to, rate, effective_from) values (?, ?, ?, ?)",
+        exchangeRates.stream()
+            .map(e -> new Object[]{e.getCurrencyFrom().name(), e.getCurrencyTo().name(), e.getRate(), timestamp})
+            .toList()
+    );
+  }
+}
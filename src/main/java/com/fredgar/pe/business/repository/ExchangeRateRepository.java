@@ -5,8 +5,11 @@ import com.fredgar.pe.business.enums.Currency;
 import com.fredgar.pe.business.model.ExchangeRate;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Optional;
+
 public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, Integer> {
 
-  ExchangeRate findByCurrencyFromAndCurrencyTo(Currency currencyFrom, Currency currencyTo);
+  // Resuelta por el índice único uk_exchange_rate_pair
+  Optional<ExchangeRate> findByCurrencyFromAndCurrencyTo(Currency currencyFrom, Currency currencyTo);
 
 }
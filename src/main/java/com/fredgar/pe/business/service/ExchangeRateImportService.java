@@ -0,0 +1,15 @@
+package com.fredgar.pe.business.service;
+
+import com.fredgar.pe.business.dto.ExchangeRateDTO;
+import com.fredgar.pe.business.dto.ExchangeRateImportResultDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+public interface ExchangeRateImportService {
+
+  ExchangeRateImportResultDTO importExchangeRates(List<ExchangeRateDTO> exchangeRates);
+  ExchangeRateImportResultDTO importExchangeRates(InputStream csv) throws IOException;
+
+}
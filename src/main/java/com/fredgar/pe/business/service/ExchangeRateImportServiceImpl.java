@@ -0,0 +1,168 @@
+package com.fredgar.pe.business.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fredgar.pe.business.components.ExchangeRateCache;
+import com.fredgar.pe.business.components.ExchangeRateHistoryWindow;
+import com.fredgar.pe.business.dto.ExchangeBatchItemDTO;
+import com.fredgar.pe.business.dto.ExchangeRateDTO;
+import com.fredgar.pe.business.dto.ExchangeRateImportResultDTO;
+import com.fredgar.pe.business.enums.Currency;
+import com.fredgar.pe.business.mapper.ExchangeRateMapper;
+import com.fredgar.pe.business.model.ExchangeRate;
+import com.fredgar.pe.business.model.ExchangeRateHistory;
+import com.fredgar.pe.business.repository.ExchangeRateJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Importación masiva de tipos de cambio. La hoja se lee y se valida fuera de la transacción; solo
+ * las escrituras ocupan una conexión, en una transacción corta.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExchangeRateImportServiceImpl implements ExchangeRateImportService {
+
+  private static final CsvMapper CSV_MAPPER = CsvMapper.builder().findAndAddModules().build();
+
+  private final ExchangeRateJdbcRepository exchangeRateJdbcRepository;
+  private final ExchangeRateMapper exchangeRateMapper;
+  private final ExchangeRateCache exchangeRateCache;
+  private final ExchangeRateHistoryWindow exchangeRateHistoryWindow;
+  private final TransactionTemplate transactionTemplate;
+
+  @Override
+  public ExchangeRateImportResultDTO importExchangeRates(List<ExchangeRateDTO> exchangeRates) {
+    return importInTransaction(exchangeRates, new ArrayList<>());
+  }
+
+  @Override
+  public ExchangeRateImportResultDTO importExchangeRates(InputStream csv) throws IOException {
+    List<ExchangeRateDTO> rows = new ArrayList<>();
+    List<ExchangeBatchItemDTO> rejected = new ArrayList<>();
+
+    try (MappingIterator<ExchangeRateDTO> lines = CSV_MAPPER
+        .readerFor(ExchangeRateDTO.class)
+        .with(CsvSchema.emptySchema().withHeader())
+        .readValues(csv)) {
+      while (true) {
+        try {
+          if (!lines.hasNextValue()) {
+            break;
+          }
+          rows.add(lines.nextValue());
+        } catch (JsonParseException e) {
+          rejected.add(new ExchangeBatchItemDTO(rows.size(), null, List.of("Contenido ilegible: " + e.getOriginalMessage())));
+          break;
+        } catch (JsonMappingException e) {
+          // Se conserva la posición de la línea para que los índices coincidan con la hoja
+          rejected.add(new ExchangeBatchItemDTO(rows.size(), null, List.of("Línea con formato inválido: " + e.getOriginalMessage())));
+          rows.add(null);
+        }
+      }
+    }
+    // El cuerpo ya se leyó completo: la transacción no espera al cliente
+    return importInTransaction(rows, rejected);
+  }
+
+  private ExchangeRateImportResultDTO importInTransaction(List<ExchangeRateDTO> rows, List<ExchangeBatchItemDTO> rejected) {
+    try {
+      return transactionTemplate.execute(status -> importRows(rows, new ArrayList<>(rejected)));
+    } catch (DataIntegrityViolationException e) {
+      // Otro proceso insertó uno de los pares a la vez; al repetir, el MERGE lo encuentra y lo actualiza
+      return transactionTemplate.execute(status -> importRows(rows, new ArrayList<>(rejected)));
+    }
+  }
+
+  private ExchangeRateImportResultDTO importRows(List<ExchangeRateDTO> rows, List<ExchangeBatchItemDTO> rejected) {
+    Map<Currency, Set<Currency>> seen = new EnumMap<>(Currency.class);
+    List<ExchangeRate> written = new ArrayList<>();
+    Set<Integer> alreadyRejected = new HashSet<>();
+    rejected.forEach(item -> alreadyRejected.add(item.index()));
+
+    for (int i = 0; i < rows.size(); i++) {
+      if (alreadyRejected.contains(i)) {
+        continue;
+      }
+      ExchangeRateDTO row = rows.get(i);
+      List<String> errors = validate(row);
+      if (errors.isEmpty() && !seen.computeIfAbsent(row.currencyFrom(), c -> EnumSet.noneOf(Currency.class)).add(row.currencyTo())) {
+        errors.add(String.format("El par %s a %s está repetido en la hoja", row.currencyFrom(), row.currencyTo()));
+      }
+      if (!errors.isEmpty()) {
+        rejected.add(new ExchangeBatchItemDTO(i, null, errors));
+        continue;
+      }
+
+      written.add(exchangeRateMapper.toExchangeRate(row));
+    }
+
+    Instant effectiveFrom = Instant.now();
+    int inserted = 0;
+    if (!written.isEmpty()) {
+      inserted = exchangeRateJdbcRepository.batchUpsert(written);
+      exchangeRateJdbcRepository.batchInsertHistory(written, effectiveFrom);
+      written.forEach(exchangeRate -> exchangeRateHistoryWindow.append(toHistory(exchangeRate, effectiveFrom)));
+      exchangeRateCache.reloadAfterCommit();
+    }
+
+    rejected.sort(Comparator.comparingInt(ExchangeBatchItemDTO::index));
+    return new ExchangeRateImportResultDTO(inserted, written.size() - inserted, rejected.size(), rejected);
+  }
+
+  private List<String> validate(ExchangeRateDTO row) {
+    List<String> errors = new ArrayList<>();
+
+    if (row == null) {
+      errors.add("La línea del tipo de cambio no puede ser nula");
+      return errors;
+    }
+
+    // Verifica los campos obligatorios
+    if (row.currencyFrom() == null) {
+      errors.add("La moneda origen no puede ser nula");
+    }
+    if (row.currencyTo() == null) {
+      errors.add("La moneda destino no puede ser nula");
+    }
+    if (row.rate() == null) {
+      errors.add("El tipo de cambio no puede ser nulo");
+    } else if (row.rate().compareTo(BigDecimal.ZERO) <= 0) {
+      errors.add("El tipo de cambio debe ser mayor que cero");
+    }
+
+    // Verifica si las monedas son iguales
+    if (row.currencyFrom() != null && row.currencyFrom().equals(row.currencyTo())) {
+      errors.add("Las monedas origen y destino no pueden ser las mismas");
+    }
+
+    return errors;
+  }
+
+  private static ExchangeRateHistory toHistory(ExchangeRate exchangeRate, Instant effectiveFrom) {
+    ExchangeRateHistory version = new ExchangeRateHistory();
+    version.setCurrencyFrom(exchangeRate.getCurrencyFrom());
+    version.setCurrencyTo(exchangeRate.getCurrencyTo());
+    version.setRate(exchangeRate.getRate());
+    version.setEffectiveFrom(effectiveFrom);
+    return version;
+  }
+}
@@ -1,19 +1,27 @@
 package com.fredgar.pe.business.service;
 
 
+import com.fredgar.pe.business.dto.ExchangeBatchItemDTO;
+import com.fredgar.pe.business.dto.ExchangeRateCacheStatsDTO;
 import com.fredgar.pe.business.dto.ExchangeRateDTO;
 import com.fredgar.pe.business.dto.ExchangeRequestDTO;
 import com.fredgar.pe.business.dto.ExchangeResponseDTO;
+import com.fredgar.pe.business.dto.ExchangeStreamSummaryDTO;
+import org.springframework.http.MediaType;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Optional;
 
 public interface ExchangeService {
 
   ExchangeResponseDTO convertCurrency(ExchangeRequestDTO request);
+  List<ExchangeBatchItemDTO> convertCurrencyBatch(List<ExchangeRequestDTO> requests);
+  ExchangeStreamSummaryDTO convertCurrencyStream(InputStream input, MediaType contentType, OutputStream output) throws IOException;
   Optional<ExchangeRateDTO> createExchangeRate(ExchangeRateDTO exchangeRateDTO);
   Optional<ExchangeRateDTO> updateExchangeRate( Integer id, ExchangeRateDTO exchangeRateDTO);
-  List<ExchangeRateDTO> findAll();
-  Optional<ExchangeRateDTO> findById(Integer id);
+  ExchangeRateCacheStatsDTO cacheStats();
 
 }
@@ -1,45 +1,78 @@
 package com.fredgar.pe.business.service;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fredgar.pe.business.components.ExchangeRateCache;
+import com.fredgar.pe.business.components.ExchangeRateHistoryWindow;
+import com.fredgar.pe.business.dto.ExchangeBatchItemDTO;
+import com.fredgar.pe.business.dto.ExchangeRateCacheStatsDTO;
 import com.fredgar.pe.business.dto.ExchangeRateDTO;
 import com.fredgar.pe.business.dto.ExchangeRequestDTO;
 import com.fredgar.pe.business.dto.ExchangeResponseDTO;
+import com.fredgar.pe.business.dto.ExchangeStreamSummaryDTO;
+import com.fredgar.pe.business.enums.Currency;
 import com.fredgar.pe.business.exception.ExchangeRateBadRequestException;
+import com.fredgar.pe.business.exception.ExchangeRateConflictException;
 import com.fredgar.pe.business.exception.ExchangeRateNotFoundException;
 import com.fredgar.pe.business.mapper.ExchangeRateMapper;
 import com.fredgar.pe.business.model.ExchangeRate;
+import com.fredgar.pe.business.model.ExchangeRateHistory;
+import com.fredgar.pe.business.repository.ExchangeRateHistoryRepository;
 import com.fredgar.pe.business.repository.ExchangeRateRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class ExchangeServiceImpl implements ExchangeService {
 
+  private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+  private static final CsvMapper CSV_MAPPER = CsvMapper.builder().findAndAddModules().build();
+
   private final ExchangeRateRepository exchangeRateRepository;
   private final ExchangeRateMapper exchangeRateMapper;
+  private final ExchangeRateHistoryRepository exchangeRateHistoryRepository;
+  private final ExchangeRateCache exchangeRateCache;
+  private final ExchangeRateHistoryWindow exchangeRateHistoryWindow;
 
-  @Override
-  public ExchangeResponseDTO convertCurrency(ExchangeRequestDTO request) {
+  private final ObjectMapper objectMapper;
 
-    List<String> errors = new ArrayList<>();
+  @Value("${application.exchange.batch.max-size}")
+  private int batchMaxSize;
 
-    // Verifica si las monedas en la solicitud son iguales
-    if (request.currencyFrom().equals(request.currencyTo())) {
-      errors.add("Las monedas origen y destino no pueden ser las mismas");
-    }
+  @Value("${application.exchange.stream.flush-every}")
+  private int streamFlushEvery;
 
-    // Verifica si el monto es mayor a 0
-    if (request.amount().compareTo(BigDecimal.ZERO) <= 0) {
-      errors.add("El monto debe ser mayor a 0");
-    }
+  @Override
+  @Transactional(Transactional.TxType.SUPPORTS)
+  public ExchangeResponseDTO convertCurrency(ExchangeRequestDTO request) {
+
+    List<String> errors = validate(request);
 
     // Si hay errores, lanza una excepción
     if (!errors.isEmpty()) {
@@ -48,14 +81,172 @@ public class ExchangeServiceImpl implements ExchangeService {
       throw new ExchangeRateBadRequestException(errors, detail, errorDetail);
     }
 
-    ExchangeRate exchangeRate = exchangeRateRepository
-        .findByCurrencyFromAndCurrencyTo(request.currencyFrom(), request.currencyTo());
+    ExchangeRateCache.Snapshot snapshot = exchangeRateCache.snapshot();
+    ExchangeRate exchangeRate = resolveRate(request, snapshot);
 
     if (exchangeRate == null) {
       throw new ExchangeRateNotFoundException(request.currencyFrom(), request.currencyTo());
     }
 
-    return exchangeRateMapper.toResponseDTO(exchangeRate, request.amount());
+    return exchangeRateMapper.toResponseDTO(exchangeRate, request.amount(), pricingEpoch(request, snapshot));
+  }
+
+  @Override
+  @Transactional(Transactional.TxType.SUPPORTS)
+  public List<ExchangeBatchItemDTO> convertCurrencyBatch(List<ExchangeRequestDTO> requests) {
+
+    if (requests.size() > batchMaxSize) {
+      List<String> errors = List.of(
+          String.format("El lote no puede tener más de %d líneas", batchMaxSize));
+      String detail = String.join("; ", errors);
+      throw new ExchangeRateBadRequestException(errors, detail, "Errores de validación: " + detail);
+    }
+
+    // Todas las líneas se resuelven contra la misma instantánea de tipos de cambio
+    ExchangeRateCache.Snapshot snapshot = exchangeRateCache.snapshot();
+    List<ExchangeBatchItemDTO> results = new ArrayList<>(requests.size());
+
+    for (int i = 0; i < requests.size(); i++) {
+      results.add(convertLine(i, requests.get(i), snapshot));
+    }
+    return results;
+  }
+
+  @Override
+  @Transactional(Transactional.TxType.SUPPORTS)
+  public ExchangeStreamSummaryDTO convertCurrencyStream(InputStream input, MediaType contentType, OutputStream output)
+      throws IOException {
+
+    ObjectReader reader = contentType.isCompatibleWith(TEXT_CSV)
+        ? CSV_MAPPER.readerFor(ExchangeRequestDTO.class).with(CsvSchema.emptySchema().withHeader())
+        : objectMapper.readerFor(ExchangeRequestDTO.class);
+    ObjectWriter writer = objectMapper.writer()
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+        .withRootValueSeparator("\n");
+
+    // Una sola instantánea para todo el archivo, igual que en el lote
+    ExchangeRateCache.Snapshot snapshot = exchangeRateCache.snapshot();
+    long start = System.nanoTime();
+    long rows = 0;
+    long failed = 0;
+
+    try (MappingIterator<ExchangeRequestDTO> lines = reader.readValues(input);
+         SequenceWriter out = writer.writeValues(output)) {
+      while (true) {
+        ExchangeBatchItemDTO item;
+        try {
+          if (!lines.hasNextValue()) {
+            break;
+          }
+          item = convertLine((int) rows, lines.nextValue(), snapshot);
+        } catch (JsonParseException e) {
+          // El contenido dejó de ser legible: no es posible ubicar la siguiente línea
+          out.write(new ExchangeBatchItemDTO((int) rows, null, List.of("Contenido ilegible: " + e.getOriginalMessage())));
+          rows++;
+          failed++;
+          break;
+        } catch (JsonMappingException e) {
+          item = new ExchangeBatchItemDTO((int) rows, null, List.of("Línea con formato inválido: " + e.getOriginalMessage()));
+        }
+
+        if (item.errors() != null) {
+          failed++;
+        }
+        out.write(item);
+        if (++rows % streamFlushEvery == 0) {
+          out.flush();
+        }
+      }
+
+      long elapsedNanos = System.nanoTime() - start;
+      ExchangeStreamSummaryDTO summary = new ExchangeStreamSummaryDTO(
+          rows,
+          rows - failed,
+          failed,
+          TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+          elapsedNanos == 0 ? 0 : rows * 1_000_000_000d / elapsedNanos
+      );
+      out.write(Map.of("resumen", summary));
+      return summary;
+    }
+  }
+
+  // Convierte una línea sin lanzar excepciones: los errores quedan en el resultado
+  private ExchangeBatchItemDTO convertLine(int index, ExchangeRequestDTO request, ExchangeRateCache.Snapshot snapshot) {
+    List<String> errors = validate(request);
+    if (!errors.isEmpty()) {
+      return new ExchangeBatchItemDTO(index, null, errors);
+    }
+
+    ExchangeRate exchangeRate = resolveRate(request, snapshot);
+    if (exchangeRate == null) {
+      String error = ExchangeRateNotFoundException.messageFor(request.currencyFrom(), request.currencyTo());
+      return new ExchangeBatchItemDTO(index, null, List.of(error));
+    }
+
+    ExchangeResponseDTO response = exchangeRateMapper.toResponseDTO(
+        exchangeRate, request.amount(), pricingEpoch(request, snapshot));
+    return new ExchangeBatchItemDTO(index, response, null);
+  }
+
+  // Sin fecha efectiva se usa la caché actual; con fecha, el historial, con los mismos pares derivados
+  private ExchangeRate resolveRate(ExchangeRequestDTO request, ExchangeRateCache.Snapshot snapshot) {
+    if (request.asOf() == null) {
+      return exchangeRateCache.get(snapshot, request.currencyFrom(), request.currencyTo());
+    }
+    return exchangeRateHistoryWindow.resolveAt(request.currencyFrom(), request.currencyTo(), request.asOf());
+  }
+
+  // Las conversiones con fecha efectiva no se valorizan con la instantánea, así que no tienen época
+  private static Long pricingEpoch(ExchangeRequestDTO request, ExchangeRateCache.Snapshot snapshot) {
+    return request.asOf() == null ? snapshot.epoch() : null;
+  }
+
+  // Registra la nueva versión del tipo de cambio en el historial, que nunca se sobrescribe
+  private void recordHistory(ExchangeRate exchangeRate) {
+    recordHistory(exchangeRate.getCurrencyFrom(), exchangeRate.getCurrencyTo(), exchangeRate.getRate());
+  }
+
+  private void recordHistory(Currency currencyFrom, Currency currencyTo, BigDecimal rate) {
+    ExchangeRateHistory version = new ExchangeRateHistory();
+    version.setCurrencyFrom(currencyFrom);
+    version.setCurrencyTo(currencyTo);
+    version.setRate(rate);
+    version.setEffectiveFrom(Instant.now());
+    exchangeRateHistoryWindow.append(exchangeRateHistoryRepository.save(version));
+  }
+
+  // Reglas compartidas por la conversión individual y por cada línea de un lote
+  private List<String> validate(ExchangeRequestDTO request) {
+    List<String> errors = new ArrayList<>();
+
+    if (request == null) {
+      errors.add("La línea de conversión no puede ser nula");
+      return errors;
+    }
+
+    // Verifica los campos obligatorios
+    if (request.amount() == null) {
+      errors.add("El monto es obligatorio.");
+    }
+    if (request.currencyFrom() == null) {
+      errors.add("La moneda de origen es obligatoria.");
+    }
+    if (request.currencyTo() == null) {
+      errors.add("La moneda de destino es obligatoria.");
+    }
+
+    // Verifica si las monedas en la solicitud son iguales
+    if (request.currencyFrom() != null && request.currencyFrom().equals(request.currencyTo())) {
+      errors.add("Las monedas origen y destino no pueden ser las mismas");
+    }
+
+    // Verifica si el monto es mayor a 0
+    if (request.amount() != null && request.amount().compareTo(BigDecimal.ZERO) <= 0) {
+      errors.add("El monto debe ser mayor a 0");
+    }
+
+    return errors;
   }
 
   @Override
@@ -74,7 +265,17 @@ public class ExchangeServiceImpl implements ExchangeService {
       String errorDetail = "Errores de validación: " + detail;
       throw new ExchangeRateBadRequestException(errors, detail, errorDetail);
     }
-    exchangeRate = exchangeRateRepository.save(exchangeRate);
+    try {
+      // El índice único del par decide la carrera entre dos creaciones simultáneas
+      exchangeRate = exchangeRateRepository.saveAndFlush(exchangeRate);
+    } catch (DataIntegrityViolationException e) {
+      throw new ExchangeRateConflictException(
+          String.format("Ya existe un tipo de cambio para las monedas: %s a %s",
+              exchangeRate.getCurrencyFrom(), exchangeRate.getCurrencyTo()),
+          exchangeRate.getCurrencyFrom(), exchangeRate.getCurrencyTo(), e);
+    }
+    recordHistory(exchangeRate);
+    exchangeRateCache.put(exchangeRate);
     return Optional.of(exchangeRateMapper.toExchangeRateDTO(exchangeRate));
   }
 
@@ -83,26 +284,41 @@ public class ExchangeServiceImpl implements ExchangeService {
     Optional<ExchangeRate> optionalExchangeRate = exchangeRateRepository.findById(id);
     if (optionalExchangeRate.isPresent()) {
       ExchangeRate exchangeRate = optionalExchangeRate.get();
+
+      // Si el cliente envía la versión que leyó, solo se actualiza sobre esa misma versión
+      if (exchangeRateDTO.version() != null && !exchangeRateDTO.version().equals(exchangeRate.getVersion())) {
+        throw new ExchangeRateConflictException(
+            String.format("La versión %d del tipo de cambio %d ya no es la vigente", exchangeRateDTO.version(), id),
+            exchangeRateDTO.currencyFrom(), exchangeRateDTO.currencyTo(), null);
+      }
+
+      Currency previousFrom = exchangeRate.getCurrencyFrom();
+      Currency previousTo = exchangeRate.getCurrencyTo();
       exchangeRate.setCurrencyFrom(exchangeRateDTO.currencyFrom());
       exchangeRate.setCurrencyTo(exchangeRateDTO.currencyTo());
       exchangeRate.setRate(exchangeRateDTO.rate());
-      exchangeRate = exchangeRateRepository.save(exchangeRate);
+      try {
+        // @Version rechaza la escritura si otra transacción actualizó la fila desde que se leyó
+        exchangeRate = exchangeRateRepository.saveAndFlush(exchangeRate);
+      } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+        throw new ExchangeRateConflictException(
+            String.format("El tipo de cambio %d no pudo actualizarse por una modificación concurrente", id),
+            exchangeRateDTO.currencyFrom(), exchangeRateDTO.currencyTo(), e);
+      }
+      if (previousFrom != exchangeRate.getCurrencyFrom() || previousTo != exchangeRate.getCurrencyTo()) {
+        // El registro se movió de par: el anterior deja de tener tipo desde ahora
+        recordHistory(previousFrom, previousTo, null);
+      }
+      recordHistory(exchangeRate);
+      exchangeRateCache.put(exchangeRate);
       return Optional.of(exchangeRateMapper.toExchangeRateDTO(exchangeRate));
     }
     return Optional.empty();
   }
 
   @Override
-  public List<ExchangeRateDTO> findAll() {
-    return exchangeRateRepository.findAll()
-        .stream()
-        .map(exchangeRateMapper::toExchangeRateDTO)
-        .collect(Collectors.toList());
-  }
-
-  @Override
-  public Optional<ExchangeRateDTO> findById(Integer id) {
-    return exchangeRateRepository.findById(id)
-        .map(exchangeRateMapper::toExchangeRateDTO);
+  @Transactional(Transactional.TxType.SUPPORTS)
+  public ExchangeRateCacheStatsDTO cacheStats() {
+    return exchangeRateCache.stats();
   }
 }
@@ -41,13 +41,15 @@ public class AuthenticationController {
    * Autentica a un usuario y genera nuevos tokens de acceso y actualización.
    *
    * @param request Datos del usuario para autenticar.
+   * @param httpRequest Solicitud HTTP, de la que se toma la IP del cliente.
    * @return Una respuesta de autenticación con los tokens generados.
    */
   @PostMapping("/authenticate")
   public ResponseEntity<AuthenticationResponse> authenticate(
-      @RequestBody AuthenticationRequest request
+      @RequestBody AuthenticationRequest request,
+      HttpServletRequest httpRequest
   ) {
-    return ResponseEntity.ok(service.authenticate(request));
+    return ResponseEntity.ok(service.authenticate(request, httpRequest.getRemoteAddr()));
   }
 
   /**
@@ -1,22 +1,32 @@
 package com.fredgar.pe.security.auth;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fredgar.pe.security.config.JwtService;
+import com.fredgar.pe.security.config.VerifiedJwt;
 import com.fredgar.pe.security.user.UserRepository;
 import com.fredgar.pe.security.token.Token;
 import com.fredgar.pe.security.token.TokenRepository;
 import com.fredgar.pe.security.token.TokenType;
 import com.fredgar.pe.security.user.User;
+import com.fredgar.pe.security.user.UserTokenStates;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
+import java.util.Optional;
+import java.util.UUID;
 
 /**
  * Servicio para manejar operaciones de autenticación como registro, inicio de sesión y renovación de tokens.
@@ -34,6 +44,11 @@ public class AuthenticationService {
    */
   private final TokenRepository tokenRepository;
 
+  /**
+   * Versión de tokens y época de revocación vigentes por usuario.
+   */
+  private final UserTokenStates userTokenStates;
+
   /**
    * Codificador de contraseñas para la seguridad de las contraseñas de usuario.
    */
@@ -49,13 +64,43 @@ public class AuthenticationService {
    */
   private final AuthenticationManager authenticationManager;
 
+  /**
+   * Contadores de intentos fallidos por email y por IP.
+   */
+  private final LoginAttemptGuard loginAttemptGuard;
+
+  /**
+   * ObjectMapper compartido de la aplicación.
+   */
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Transacción de las escrituras de una rotación de tokens de actualización.
+   */
+  private final TransactionTemplate transactionTemplate;
+
+  /**
+   * Escritor de respuestas de autenticación, construido una sola vez a partir del ObjectMapper compartido.
+   */
+  private ObjectWriter responseWriter;
+
+  @PostConstruct
+  void init() {
+    responseWriter = objectMapper.writerFor(AuthenticationResponse.class);
+  }
+
   /**
    * Registra un nuevo usuario y genera tokens de acceso y actualización.
    *
    * @param request Datos del usuario a registrar.
    * @return Una respuesta de autenticación con los tokens generados.
+   * @throws EmailAlreadyRegisteredException si el email ya está registrado.
    */
   public AuthenticationResponse register(RegisterRequest request) {
+    // Se comprueba antes de calcular el hash para no gastar un bcrypt en un registro que fallará
+    if (repository.findByEmail(User.normalizeEmail(request.getEmail())).isPresent()) {
+      throw new EmailAlreadyRegisteredException("El email ya está registrado");
+    }
     var user = User.builder()
         .firstname(request.getFirstname())
         .lastname(request.getLastname())
@@ -63,10 +108,27 @@ public class AuthenticationService {
         .password(passwordEncoder.encode(request.getPassword()))
         .role(request.getRole())
         .build();
-    var savedUser = repository.save(user);
-    var jwtToken = jwtService.generateToken(user);
-    var refreshToken = jwtService.generateRefreshToken(user);
-    saveUserToken(savedUser, jwtToken);
+    final User savedUser;
+    try {
+      savedUser = repository.save(user);
+    } catch (DataIntegrityViolationException e) {
+      // Otro registro concurrente tomó el mismo email entre la comprobación y la inserción
+      throw new EmailAlreadyRegisteredException("El email ya está registrado");
+    }
+    userTokenStates.track(savedUser);
+    return startSession(savedUser);
+  }
+
+  /**
+   * Emite los tokens de acceso y actualización de un usuario recién guardado y guarda la sesión en una familia nueva.
+   *
+   * @param savedUser Usuario ya guardado, sin sesiones previas.
+   * @return Una respuesta de autenticación con los tokens generados.
+   */
+  public AuthenticationResponse startSession(User savedUser) {
+    var jwtToken = jwtService.generateToken(savedUser);
+    var refreshToken = jwtService.generateRefreshToken(savedUser);
+    saveSessionToken(savedUser, jwtToken, refreshToken, UUID.randomUUID().toString());
     return AuthenticationResponse.builder()
         .accessToken(jwtToken)
             .refreshToken(refreshToken)
@@ -77,21 +139,32 @@ public class AuthenticationService {
    * Autentica a un usuario y genera nuevos tokens de acceso y actualización.
    *
    * @param request Datos del usuario para autenticar.
+   * @param clientIp IP del cliente que intenta iniciar sesión.
    * @return Una respuesta de autenticación con los tokens generados.
+   * @throws LoginLockedException si el email o la IP están bloqueados por intentos fallidos.
    */
-  public AuthenticationResponse authenticate(AuthenticationRequest request) {
-    authenticationManager.authenticate(
-        new UsernamePasswordAuthenticationToken(
-            request.getEmail(),
-            request.getPassword()
-        )
-    );
-    var user = repository.findByEmail(request.getEmail())
+  public AuthenticationResponse authenticate(AuthenticationRequest request, String clientIp) {
+    // Un email o una IP bloqueados se rechazan antes de gastar una verificación bcrypt
+    loginAttemptGuard.checkAllowed(request.getEmail(), clientIp);
+    try {
+      authenticationManager.authenticate(
+          new UsernamePasswordAuthenticationToken(
+              request.getEmail(),
+              request.getPassword()
+          )
+      );
+    } catch (BadCredentialsException e) {
+      loginAttemptGuard.recordFailure(request.getEmail(), clientIp);
+      throw e;
+    }
+    loginAttemptGuard.recordSuccess(request.getEmail());
+    var user = repository.findByEmail(User.normalizeEmail(request.getEmail()))
         .orElseThrow();
+    // Se revocan las sesiones anteriores antes de emitir: los nuevos tokens llevan la nueva época
+    revokeAllUserTokens(user);
     var jwtToken = jwtService.generateToken(user);
     var refreshToken = jwtService.generateRefreshToken(user);
-    revokeAllUserTokens(user);
-    saveUserToken(user, jwtToken);
+    saveSessionToken(user, jwtToken, refreshToken, UUID.randomUUID().toString());
     return AuthenticationResponse.builder()
         .accessToken(jwtToken)
             .refreshToken(refreshToken)
@@ -99,16 +172,37 @@ public class AuthenticationService {
   }
 
   /**
-   * Guarda el token JWT en el repositorio de tokens.
+   * Guarda los tokens de la sesión en su familia. El de actualización se guarda siempre; el de acceso
+   * solo en modo {@code STATEFUL}.
+   *
+   * @param user Usuario asociado con los tokens.
+   * @param accessToken Token de acceso emitido.
+   * @param refreshToken Token de actualización emitido.
+   * @param familyId Familia del token de actualización.
+   */
+  private void saveSessionToken(User user, String accessToken, String refreshToken, String familyId) {
+    if (!jwtService.isStateless()) {
+      saveUserToken(user, accessToken, TokenType.BEARER, familyId);
+    }
+    saveUserToken(user, refreshToken, TokenType.REFRESH, familyId);
+  }
+
+  /**
+   * Guarda la huella y la expiración del token JWT en el repositorio de tokens.
    *
    * @param user Usuario asociado con el token.
    * @param jwtToken Token JWT a guardar.
+   * @param tokenType Tipo del token.
+   * @param familyId Familia de la sesión a la que pertenece el token.
    */
-  private void saveUserToken(User user, String jwtToken) {
+  private void saveUserToken(User user, String jwtToken, TokenType tokenType, String familyId) {
+    var verified = jwtService.verify(jwtToken).orElseThrow();
     var token = Token.builder()
         .user(user)
-        .token(jwtToken)
-        .tokenType(TokenType.BEARER)
+        .digest(verified.digest())
+        .expiresAt(verified.expiration().toInstant())
+        .familyId(familyId)
+        .tokenType(tokenType)
         .expired(false)
         .revoked(false)
         .build();
@@ -116,53 +210,94 @@ public class AuthenticationService {
   }
 
   /**
-   * Revoca todos los tokens válidos de un usuario.
+   * Revoca todos los tokens guardados vigentes de un usuario con una sola sentencia UPDATE e
+   * incrementa su época de revocación, que es lo que el filtro verifica en memoria.
    *
-   * @param user Usuario cuyos tokens se revocarán.
+   * @param user Usuario cuyos tokens se revocarán; recibe la nueva época.
    */
   private void revokeAllUserTokens(User user) {
-    var validUserTokens = tokenRepository.findAllValidTokenByUser(user.getId());
-    if (validUserTokens.isEmpty())
-      return;
-    validUserTokens.forEach(token -> {
-      token.setExpired(true);
-      token.setRevoked(true);
-    });
-    tokenRepository.saveAll(validUserTokens);
+    tokenRepository.revokeAllLiveTokensOfUser(user.getId());
+    user.setRevocationEpoch(userTokenStates.bumpRevocationEpoch(user.getId()));
   }
 
   /**
-   * Renueva el token de acceso de un usuario a partir de su token de actualización.
+   * Renueva el token de acceso de un usuario a partir de su token de actualización. El token de
+   * actualización se rota en cada uso; presentar uno ya usado revoca toda su familia.
    *
    * @param request Solicitud HTTP.
    * @param response Respuesta HTTP.
    * @throws IOException Si ocurre un error de entrada/salida.
+   * @throws InvalidRefreshTokenException si el token es inválido, no está guardado o ya fue usado.
    */
   public void refreshToken(
           HttpServletRequest request,
           HttpServletResponse response
   ) throws IOException {
     final String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
-    final String refreshToken;
-    final String userEmail;
     if (authHeader == null ||!authHeader.startsWith("Bearer ")) {
       return;
     }
-    refreshToken = authHeader.substring(7);
-    userEmail = jwtService.extractUsername(refreshToken);
-    if (userEmail != null) {
-      var user = this.repository.findByEmail(userEmail)
-              .orElseThrow();
-      if (jwtService.isTokenValid(refreshToken, user)) {
-        var accessToken = jwtService.generateToken(user);
-        revokeAllUserTokens(user);
-        saveUserToken(user, accessToken);
-        var authResponse = AuthenticationResponse.builder()
-                .accessToken(accessToken)
-                .refreshToken(refreshToken)
-                .build();
-        new ObjectMapper().writeValue(response.getOutputStream(), authResponse);
+    var authResponse = rotateRefreshToken(authHeader.substring(7));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    responseWriter.writeValue(response.getOutputStream(), authResponse);
+  }
+
+  /**
+   * Consume un token de actualización guardado y emite un token de acceso y el siguiente token de la familia.
+   *
+   * @param refreshToken Token de actualización recibido.
+   * @return Una respuesta de autenticación con los tokens generados.
+   */
+  private AuthenticationResponse rotateRefreshToken(String refreshToken) {
+    var verified = jwtService.verify(refreshToken)
+        .filter(VerifiedJwt::isRefreshToken)
+        .orElseThrow(() -> new InvalidRefreshTokenException("El token de actualización es inválido o expiró"));
+    var stored = tokenRepository.findByDigest(verified.digest())
+        .filter(token -> token.getTokenType() == TokenType.REFRESH && token.getFamilyId() != null)
+        .orElseThrow(() -> new InvalidRefreshTokenException("El token de actualización no pertenece a una sesión"));
+    var user = repository.findByEmail(verified.subject())
+        .filter(candidate -> jwtService.isTokenValid(verified, candidate))
+        .orElseThrow(() -> new InvalidRefreshTokenException("El token de actualización ya no es válido para el usuario"));
+
+    // Todas las escrituras confirman juntas; la época nueva se publica en memoria solo al confirmar
+    return transactionTemplate.execute(status -> rotate(stored, user))
+        .orElseThrow(() -> new InvalidRefreshTokenException("El token de actualización ya fue usado; se cerró la sesión"));
+  }
+
+  /**
+   * Escrituras de una rotación, dentro de su transacción.
+   *
+   * @param stored Fila del token de actualización recibido.
+   * @param user Usuario del token.
+   * @return Los tokens emitidos, o vacío si el token ya se había consumido y se cerró su familia.
+   * @throws InvalidRefreshTokenException si el token fue revocado o expiró sin haberse usado.
+   */
+  private Optional<AuthenticationResponse> rotate(Token stored, User user) {
+    // Solo una solicitud consume el token; las demás esperan su confirmación y no encuentran la fila vigente
+    if (tokenRepository.markUsed(stored.getId()) == 0) {
+      if (!tokenRepository.isUsed(stored.getId())) {
+        // Revocado por un nuevo inicio de sesión o un cierre de sesión, o expirado: no es una copia
+        throw new InvalidRefreshTokenException("El token de actualización fue revocado o expiró");
       }
+      // Un token ya rotado delata una copia. Si la familia aún tenía tokens vigentes, el de acceso
+      // emitido con el último puede seguir en uso y solo la época de revocación lo invalida
+      if (tokenRepository.revokeFamily(stored.getFamilyId()) > 0) {
+        userTokenStates.bumpRevocationEpoch(user.getId());
+      }
+      return Optional.empty();
+    }
+
+    // Los tokens de acceso anteriores se revocan antes de emitir: el nuevo lleva la nueva época
+    if (!jwtService.isStateless()) {
+      tokenRepository.revokeLiveTokensOfUser(user.getId(), TokenType.BEARER);
     }
+    user.setRevocationEpoch(userTokenStates.bumpRevocationEpoch(user.getId()));
+    var accessToken = jwtService.generateToken(user);
+    var nextRefreshToken = jwtService.generateRefreshToken(user);
+    saveSessionToken(user, accessToken, nextRefreshToken, stored.getFamilyId());
+    return Optional.of(AuthenticationResponse.builder()
+        .accessToken(accessToken)
+        .refreshToken(nextRefreshToken)
+        .build());
   }
 }
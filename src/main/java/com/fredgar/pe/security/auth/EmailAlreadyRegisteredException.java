@@ -0,0 +1,12 @@
+package com.fredgar.pe.security.auth;
+
+/**
+ * Se lanza cuando se intenta registrar un email que ya pertenece a otro usuario.
+ */
+public class EmailAlreadyRegisteredException extends RuntimeException {
+
+  public EmailAlreadyRegisteredException(String message) {
+    super(message);
+  }
+
+}
@@ -0,0 +1,12 @@
+package com.fredgar.pe.security.auth;
+
+/**
+ * Se lanza cuando un token de actualización es inválido, expiró, no está guardado o ya fue usado.
+ */
+public class InvalidRefreshTokenException extends RuntimeException {
+
+  public InvalidRefreshTokenException(String message) {
+    super(message);
+  }
+
+}
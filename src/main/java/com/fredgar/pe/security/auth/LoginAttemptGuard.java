@@ -0,0 +1,187 @@
+package com.fredgar.pe.security.auth;
+
+import com.fredgar.pe.security.user.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Contadores de inicios de sesión fallidos por email y por IP, consultados antes de verificar la
+ * contraseña. Un email o una IP bloqueados se rechazan sin ejecutar bcrypt.
+ * <p>
+ * A partir de {@code max-failures} fallos cada fallo adicional duplica el bloqueo, desde
+ * {@code base-lockout} hasta {@code max-lockout}. Los contadores se guardan en dos generaciones que
+ * rotan cada {@code max-lockout} o al superar {@code max-entries}: una clave sin fallos durante dos
+ * generaciones desaparece, así la memoria queda acotada aunque se prueben millones de claves. Una
+ * rotación por tamaño conserva los bloqueos vigentes, de modo que llenar los contadores con claves
+ * nuevas no desbloquea un email o una IP.
+ */
+@Component
+public class LoginAttemptGuard {
+
+  private final FailureCounters byEmail;
+  private final FailureCounters byIp;
+
+  public LoginAttemptGuard(
+      @Value("${application.security.login-attempts.email-max-failures}") int emailMaxFailures,
+      @Value("${application.security.login-attempts.ip-max-failures}") int ipMaxFailures,
+      @Value("${application.security.login-attempts.base-lockout}") Duration baseLockout,
+      @Value("${application.security.login-attempts.max-lockout}") Duration maxLockout,
+      @Value("${application.security.login-attempts.max-entries}") int maxEntries) {
+    this.byEmail = new FailureCounters(emailMaxFailures, baseLockout.toMillis(), maxLockout.toMillis(), maxEntries);
+    this.byIp = new FailureCounters(ipMaxFailures, baseLockout.toMillis(), maxLockout.toMillis(), maxEntries);
+  }
+
+  /**
+   * Verifica que ni el email ni la IP estén bloqueados.
+   *
+   * @param email Email del intento.
+   * @param clientIp IP del cliente.
+   * @throws LoginLockedException si alguno está bloqueado.
+   */
+  public void checkAllowed(String email, String clientIp) {
+    long now = System.currentTimeMillis();
+    long lockedUntil = Math.max(byEmail.lockedUntil(User.normalizeEmail(email), now), byIp.lockedUntil(clientIp, now));
+    if (lockedUntil > now) {
+      long retryAfterSeconds = Math.max(1, (lockedUntil - now + 999) / 1000);
+      throw new LoginLockedException("Demasiados intentos fallidos de inicio de sesión", retryAfterSeconds);
+    }
+  }
+
+  /**
+   * Registra un intento fallido para el email y la IP.
+   *
+   * @param email Email del intento.
+   * @param clientIp IP del cliente.
+   */
+  public void recordFailure(String email, String clientIp) {
+    long now = System.currentTimeMillis();
+    byEmail.recordFailure(User.normalizeEmail(email), now);
+    byIp.recordFailure(clientIp, now);
+  }
+
+  /**
+   * Reinicia el contador del email tras un inicio de sesión correcto. El de la IP se conserva para que
+   * una cuenta válida no sirva para limpiar los fallos de una IP que prueba otras cuentas.
+   *
+   * @param email Email autenticado.
+   */
+  public void recordSuccess(String email) {
+    byEmail.reset(User.normalizeEmail(email), System.currentTimeMillis());
+  }
+
+  /**
+   * Contadores de una dimensión (email o IP) en dos generaciones.
+   */
+  private static final class FailureCounters {
+
+    private final int maxFailures;
+    private final long baseLockoutMillis;
+    private final long maxLockoutMillis;
+    private final int maxEntries;
+
+    private final AtomicReference<Generations> generations;
+
+    private FailureCounters(int maxFailures, long baseLockoutMillis, long maxLockoutMillis, int maxEntries) {
+      this.maxFailures = maxFailures;
+      this.baseLockoutMillis = baseLockoutMillis;
+      this.maxLockoutMillis = maxLockoutMillis;
+      this.maxEntries = maxEntries;
+      this.generations = new AtomicReference<>(new Generations(System.currentTimeMillis(), 0, new ConcurrentHashMap<>(), new ConcurrentHashMap<>()));
+    }
+
+    private long lockedUntil(String key, long now) {
+      if (key == null) {
+        return 0;
+      }
+      Generations current = rotateIfDue(now);
+      Failures failures = current.current.get(key);
+      if (failures == null) {
+        failures = current.previous.get(key);
+      }
+      return failures == null ? 0 : failures.lockedUntil.get();
+    }
+
+    private void recordFailure(String key, long now) {
+      if (key == null) {
+        return;
+      }
+      Generations current = rotateIfDue(now);
+      // Los fallos de la generación anterior se trasladan para no perder el historial
+      Failures failures = current.current.computeIfAbsent(key, k -> {
+        Failures previous = current.previous.get(k);
+        return previous != null ? previous : new Failures();
+      });
+      int count = failures.count.incrementAndGet();
+      if (count >= maxFailures) {
+        int doublings = Math.min(count - maxFailures, 30);
+        long lockout = Math.min(maxLockoutMillis, baseLockoutMillis << doublings);
+        failures.lockedUntil.accumulateAndGet(now + lockout, Math::max);
+      }
+    }
+
+    private void reset(String key, long now) {
+      if (key == null) {
+        return;
+      }
+      Generations current = rotateIfDue(now);
+      current.current.remove(key);
+      current.previous.remove(key);
+    }
+
+    // Rota cuando vence la generación o se llena; un solo hilo hace la rotación
+    private Generations rotateIfDue(long now) {
+      Generations current = generations.get();
+      if (!isDue(current, now)) {
+        return current;
+      }
+      synchronized (this) {
+        current = generations.get();
+        if (!isDue(current, now)) {
+          return current;
+        }
+        ConcurrentMap<String, Failures> next = new ConcurrentHashMap<>();
+        if (now - current.startedAt < maxLockoutMillis) {
+          // Una rotación por tamaño llega antes de que venzan los bloqueos: los vigentes pasan a la
+          // generación nueva para que una ráfaga de claves distintas no los libere
+          carryLocked(current.previous, next, now);
+          carryLocked(current.current, next, now);
+        }
+        Generations rotated = new Generations(now, next.size(), next, current.current);
+        generations.set(rotated);
+        return rotated;
+      }
+    }
+
+    // Las claves trasladadas no cuentan para el límite, así que unos bloqueos vigentes no disparan otra rotación
+    private boolean isDue(Generations current, long now) {
+      return now - current.startedAt >= maxLockoutMillis || current.current.size() - current.carried >= maxEntries;
+    }
+
+    // Se trasladan como máximo max-entries bloqueos para que la memoria siga acotada
+    private void carryLocked(ConcurrentMap<String, Failures> from, ConcurrentMap<String, Failures> to, long now) {
+      for (var entry : from.entrySet()) {
+        if (to.size() >= maxEntries) {
+          return;
+        }
+        if (entry.getValue().lockedUntil.get() > now) {
+          to.put(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+  }
+
+  private record Generations(long startedAt, int carried, ConcurrentMap<String, Failures> current, ConcurrentMap<String, Failures> previous) {
+  }
+
+  private static final class Failures {
+    private final AtomicInteger count = new AtomicInteger();
+    private final AtomicLong lockedUntil = new AtomicLong();
+  }
+}
@@ -0,0 +1,18 @@
+package com.fredgar.pe.security.auth;
+
+import lombok.Getter;
+
+/**
+ * Se lanza cuando el email o la IP de un inicio de sesión están bloqueados por intentos fallidos.
+ */
+@Getter
+public class LoginLockedException extends RuntimeException {
+
+  private final long retryAfterSeconds;
+
+  public LoginLockedException(String message, long retryAfterSeconds) {
+    super(message);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+}
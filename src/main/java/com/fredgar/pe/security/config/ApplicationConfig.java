@@ -1,8 +1,9 @@
 package com.fredgar.pe.security.config;
 
 import com.fredgar.pe.security.auditing.ApplicationAuditAware;
-import com.fredgar.pe.security.user.UserRepository;
+import com.fredgar.pe.security.user.UserDetailsCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.AuditorAware;
@@ -11,9 +12,8 @@ import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
 
 /**
  * Clase de configuración para la aplicación.
@@ -24,9 +24,9 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 public class ApplicationConfig {
 
   /**
-   * Repositorio de usuarios para operaciones relacionadas con la base de datos.
+   * Caché de usuarios por email, respaldada por el repositorio de usuarios.
    */
-  private final UserRepository repository;
+  private final UserDetailsCache userDetailsCache;
 
   /**
    * Bean para el servicio de detalles de usuario.
@@ -35,20 +35,22 @@ public class ApplicationConfig {
    */
   @Bean
   public UserDetailsService userDetailsService() {
-    return username -> repository.findByEmail(username)
-        .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    return userDetailsCache;
   }
 
   /**
    * Bean para el proveedor de autenticación.
+   * El mismo caché de usuarios recalcula el hash al iniciar sesión cuando cambia el costo de bcrypt.
    *
+   * @param passwordEncoder Codificador de contraseñas acotado.
    * @return AuthenticationProvider configurado con UserDetailsService y PasswordEncoder.
    */
   @Bean
-  public AuthenticationProvider authenticationProvider() {
+  public AuthenticationProvider authenticationProvider(BoundedPasswordEncoder passwordEncoder) {
     DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
     authProvider.setUserDetailsService(userDetailsService());
-    authProvider.setPasswordEncoder(passwordEncoder());
+    authProvider.setUserDetailsPasswordService(userDetailsCache);
+    authProvider.setPasswordEncoder(passwordEncoder);
     return authProvider;
   }
 
@@ -78,11 +80,19 @@ public class ApplicationConfig {
   /**
    * Bean para el codificador de contraseñas.
    *
-   * @return PasswordEncoder que utiliza BCrypt.
+   * @param strength Costo de bcrypt.
+   * @param threads Hilos dedicados al hash de contraseñas.
+   * @param queueCapacity Operaciones que pueden esperar antes de rechazar nuevas solicitudes.
+   * @param timeout Tiempo máximo de espera de una operación.
+   * @return PasswordEncoder que utiliza BCrypt en un ejecutor acotado.
    */
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public BoundedPasswordEncoder passwordEncoder(
+      @Value("${application.security.password.bcrypt-strength}") int strength,
+      @Value("${application.security.password.hashing.threads}") int threads,
+      @Value("${application.security.password.hashing.queue-capacity}") int queueCapacity,
+      @Value("${application.security.password.hashing.timeout}") Duration timeout) {
+    return new BoundedPasswordEncoder(strength, threads, queueCapacity, timeout);
   }
 
 }
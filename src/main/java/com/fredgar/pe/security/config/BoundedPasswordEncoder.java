@@ -0,0 +1,170 @@
+package com.fredgar.pe.security.config;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Codificador BCrypt que ejecuta cada hash y cada verificación en un ejecutor dedicado y acotado.
+ * <p>
+ * Así una ráfaga de inicios de sesión ocupa como máximo {@code threads} núcleos y {@code threads +
+ * queueCapacity} hilos de Tomcat; las solicitudes que no caben se rechazan de inmediato con
+ * {@link PasswordHashingUnavailableException} en lugar de acumularse y dejar sin hilos al resto de la API.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+  private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abyx]?\\$(\\d\\d)\\$");
+
+  private final BCryptPasswordEncoder delegate;
+  private final int strength;
+  private final int queueCapacity;
+  private final long timeoutNanos;
+  private final ThreadPoolExecutor executor;
+
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder timedOut = new LongAdder();
+  private final LongAdder completed = new LongAdder();
+  private final LongAdder waitNanos = new LongAdder();
+  private final LongAdder hashNanos = new LongAdder();
+
+  public BoundedPasswordEncoder(int strength, int threads, int queueCapacity, Duration timeout) {
+    this.delegate = new BCryptPasswordEncoder(strength);
+    this.strength = strength;
+    this.queueCapacity = queueCapacity;
+    this.timeoutNanos = timeout.toNanos();
+    this.executor = new ThreadPoolExecutor(
+        threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        namedThreads(),
+        new ThreadPoolExecutor.AbortPolicy()
+    );
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return submit(() -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return submit(() -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  /**
+   * Calcula en paralelo los hashes de un lote en el pool indicado, fuera del ejecutor de inicios de
+   * sesión: un alta masiva no ocupa la cola que protege a {@code /authenticate} ni sus métricas.
+   *
+   * @param rawPasswords Contraseñas en claro.
+   * @param pool Pool acotado en el que se calculan los hashes.
+   * @return Hashes en el mismo orden que las contraseñas.
+   */
+  public List<String> encodeAll(List<? extends CharSequence> rawPasswords, ForkJoinPool pool) {
+    return pool.submit(() -> rawPasswords.parallelStream()
+        .map(delegate::encode)
+        .toList()
+    ).join();
+  }
+
+  /**
+   * Indica si el hash guardado se generó con un costo distinto al configurado, para que
+   * {@link org.springframework.security.authentication.dao.DaoAuthenticationProvider} lo recalcule
+   * al iniciar sesión.
+   */
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    if (encodedPassword == null) {
+      return false;
+    }
+    Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+    return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+  }
+
+  /**
+   * @return Métricas de la cola y de la latencia de bcrypt.
+   */
+  public PasswordHashingStats stats() {
+    long done = completed.sum();
+    return new PasswordHashingStats(
+        executor.getMaximumPoolSize(),
+        executor.getActiveCount(),
+        executor.getQueue().size(),
+        queueCapacity,
+        done,
+        rejected.sum(),
+        timedOut.sum(),
+        done == 0 ? 0 : waitNanos.sum() / 1_000_000.0 / done,
+        done == 0 ? 0 : hashNanos.sum() / 1_000_000.0 / done,
+        strength
+    );
+  }
+
+  /**
+   * Detiene el ejecutor al cerrar el contexto.
+   */
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  private <T> T submit(Callable<T> operation) {
+    long submittedAt = System.nanoTime();
+    Future<T> future;
+    try {
+      future = executor.submit(() -> {
+        long startedAt = System.nanoTime();
+        try {
+          return operation.call();
+        } finally {
+          long finishedAt = System.nanoTime();
+          waitNanos.add(startedAt - submittedAt);
+          hashNanos.add(finishedAt - startedAt);
+          completed.increment();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      throw new PasswordHashingUnavailableException("Demasiadas operaciones de contraseña en curso", true, e);
+    }
+
+    try {
+      return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(false);
+      timedOut.increment();
+      throw new PasswordHashingUnavailableException("La operación de contraseña excedió el tiempo de espera", false, e);
+    } catch (InterruptedException e) {
+      future.cancel(false);
+      Thread.currentThread().interrupt();
+      throw new PasswordHashingUnavailableException("La operación de contraseña fue interrumpida", false, e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private static ThreadFactory namedThreads() {
+    AtomicInteger sequence = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, "password-hashing-" + sequence.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
@@ -1,11 +1,14 @@
 package com.fredgar.pe.security.config;
 
-import com.fredgar.pe.security.token.TokenRepository;
+import com.fredgar.pe.security.token.TokenRevocationIndex;
+import com.fredgar.pe.security.user.User;
+import com.fredgar.pe.security.user.UserTokenStates;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,6 +19,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 /**
  * Filtro de autenticación JWT que se ejecuta una vez por cada solicitud HTTP.
@@ -35,9 +39,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
   private final UserDetailsService userDetailsService;
 
   /**
-   * Repositorio para manejar tokens.
+   * Índice en memoria de tokens revocados.
    */
-  private final TokenRepository tokenRepository;
+  private final TokenRevocationIndex tokenRevocationIndex;
+
+  /**
+   * Versión de tokens y época de revocación vigentes por usuario.
+   */
+  private final UserTokenStates userTokenStates;
+
+  /**
+   * Forma de construir la autenticación: cargando el usuario o solo con las reclamaciones del token.
+   */
+  @Value("${application.security.jwt.filter-mode}")
+  private JwtFilterMode filterMode;
 
   /**
    * Método para filtrar y autenticar solicitudes basadas en JWT.
@@ -63,34 +78,56 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     // Obtiene el token JWT del encabezado de autorización
     final String authHeader = request.getHeader("Authorization");
     final String jwt;
-    final String userEmail;
     if (authHeader == null || !authHeader.startsWith("Bearer ")) {
       filterChain.doFilter(request, response);
       return;
     }
     jwt = authHeader.substring(7);
-    userEmail = jwtService.extractUsername(jwt);
 
-    // Proceso de autenticación si el usuario no está ya autenticado
-    if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-      UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-      var isTokenValid = tokenRepository.findByToken(jwt)
-          .map(t -> !t.isExpired() && !t.isRevoked())
-          .orElse(false);
+    // Verifica firma y expiración con un único parseo
+    final Optional<VerifiedJwt> verified = jwtService.verify(jwt);
+    if (verified.isEmpty() || verified.get().isRefreshToken()) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+    final String userEmail = verified.get().subject();
 
-      // Establece la autenticación en el contexto de seguridad si el token es válido
-      if (jwtService.isTokenValid(jwt, userDetails) && isTokenValid) {
-        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-            userDetails,
-            null,
-            userDetails.getAuthorities()
-        );
-        authToken.setDetails(
-            new WebAuthenticationDetailsSource().buildDetails(request)
-        );
-        SecurityContextHolder.getContext().setAuthentication(authToken);
+    // Proceso de autenticación si el usuario no está ya autenticado
+    // La revocación individual (logout) y la de todas las sesiones (época) se resuelven en memoria
+    if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null
+        && !tokenRevocationIndex.isRevoked(verified.get())
+        && userTokenStates.isCurrent(verified.get().userId(), verified.get().tokenVersion(), verified.get().revocationEpoch())) {
+      if (filterMode == JwtFilterMode.CLAIMS || jwtService.isStateless()) {
+        // El rol viene firmado en el token: no se carga el usuario; el modo STATELESS siempre autentica así
+        User principal = verified.get().toPrincipal();
+        if (principal != null) {
+          authenticate(request, principal);
+        }
+      } else {
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+        if (jwtService.isTokenValid(verified.get(), userDetails)) {
+          authenticate(request, userDetails);
+        }
       }
     }
     filterChain.doFilter(request, response);
   }
+
+  /**
+   * Establece la autenticación del usuario en el contexto de seguridad.
+   *
+   * @param request Solicitud HTTP entrante.
+   * @param userDetails Usuario autenticado.
+   */
+  private void authenticate(HttpServletRequest request, UserDetails userDetails) {
+    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+        userDetails,
+        null,
+        userDetails.getAuthorities()
+    );
+    authToken.setDetails(
+        new WebAuthenticationDetailsSource().buildDetails(request)
+    );
+    SecurityContextHolder.getContext().setAuthentication(authToken);
+  }
 }
@@ -0,0 +1,18 @@
+package com.fredgar.pe.security.config;
+
+/**
+ * Forma en que {@link JwtAuthenticationFilter} construye la autenticación de una solicitud.
+ */
+public enum JwtFilterMode {
+
+  /**
+   * Carga el usuario con el {@link org.springframework.security.core.userdetails.UserDetailsService}.
+   */
+  USER,
+
+  /**
+   * Construye el usuario solo con las reclamaciones firmadas del token; no consulta la base de datos
+   * salvo para conocer la versión de tokens de un usuario que aún no está en memoria.
+   */
+  CLAIMS
+}
@@ -0,0 +1,250 @@
+package com.fredgar.pe.security.config;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.LocatorAdapter;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.EdECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.NamedParameterSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Claves asimétricas para firmar y verificar tokens JWT, identificadas por {@code kid}.
+ * <p>
+ * Las claves se leen de un almacén PKCS12 (una entrada por {@code kid}, la activa firma y las demás
+ * solo verifican) para que todos los nodos compartan las mismas. Sin almacén se genera una clave
+ * efímera al iniciar que se rota cada {@code rotation-interval}; las claves retiradas se conservan
+ * para verificar hasta que expiren los tokens que firmaron. Una clave efímera solo sirve para
+ * desarrollo: cada reinicio invalida todos los tokens emitidos y cada instancia rechaza los de las
+ * demás, así que en producción debe configurarse un almacén compartido por todas las instancias. Las claves públicas se publican en
+ * {@code /.well-known/jwks.json} para que otros servicios verifiquen los tokens sin consultar a este.
+ */
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+  private static final List<String> ALGORITHMS = List.of("RS256", "EdDSA");
+
+  private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+  private final String algorithm;
+  private final String keystoreLocation;
+  private final String keystorePassword;
+  private final String activeKid;
+  private final long retentionMillis;
+
+  private final ConcurrentMap<String, VerificationKey> verificationKeys = new ConcurrentHashMap<>();
+  private volatile SigningKey signingKey;
+  private volatile Map<String, Object> jwks = Map.of("keys", List.of());
+  private boolean ephemeral;
+
+  public JwtKeyRing(
+      @Value("${application.security.jwt.signing.algorithm}") String algorithm,
+      @Value("${application.security.jwt.signing.keystore}") String keystoreLocation,
+      @Value("${application.security.jwt.signing.keystore-password}") String keystorePassword,
+      @Value("${application.security.jwt.signing.active-kid}") String activeKid,
+      @Value("${application.security.jwt.refresh-token.expiration}") long refreshExpiration) {
+    if (!ALGORITHMS.contains(algorithm)) {
+      throw new IllegalStateException(String.format(
+          "Algoritmo de firma JWT no admitido: %s; use uno de %s", algorithm, ALGORITHMS));
+    }
+    this.algorithm = algorithm;
+    this.keystoreLocation = keystoreLocation;
+    this.keystorePassword = keystorePassword;
+    this.activeKid = activeKid;
+    this.retentionMillis = refreshExpiration;
+  }
+
+  @PostConstruct
+  void init() throws GeneralSecurityException, IOException {
+    if (keystoreLocation == null || keystoreLocation.isBlank()) {
+      log.warn("Sin application.security.jwt.signing.keystore se firma con claves efímeras: cada reinicio "
+          + "invalida los tokens emitidos y otras instancias no los aceptan. Configure un almacén compartido en producción.");
+      ephemeral = true;
+      rotate();
+    } else {
+      loadKeystore();
+    }
+  }
+
+  /**
+   * @return Clave con la que se firman los tokens nuevos.
+   */
+  public SigningKey signingKey() {
+    return signingKey;
+  }
+
+  /**
+   * Localizador de la clave de verificación a partir del {@code kid} del encabezado del token.
+   *
+   * @return Localizador para el parser de JWT.
+   */
+  public LocatorAdapter<Key> locator() {
+    return new LocatorAdapter<>() {
+      @Override
+      protected Key locate(JwsHeader header) {
+        VerificationKey key = header.getKeyId() == null ? null : verificationKeys.get(header.getKeyId());
+        if (key == null) {
+          throw new JwtException("Clave de firma desconocida: " + header.getKeyId());
+        }
+        return key.publicKey();
+      }
+    };
+  }
+
+  /**
+   * @return Conjunto JWK con las claves públicas vigentes.
+   */
+  public Map<String, Object> jwks() {
+    return jwks;
+  }
+
+  /**
+   * Genera una nueva clave efímera de firma. La anterior se conserva solo para verificar.
+   * No hace nada si las claves vienen de un almacén: en ese caso se rotan agregando una entrada y
+   * cambiando {@code active-kid}.
+   */
+  @Scheduled(
+      initialDelayString = "${application.security.jwt.signing.rotation-interval}",
+      fixedDelayString = "${application.security.jwt.signing.rotation-interval}")
+  public synchronized void rotateIfEphemeral() throws GeneralSecurityException {
+    if (ephemeral) {
+      rotate();
+    }
+  }
+
+  private synchronized void rotate() throws GeneralSecurityException {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("EdDSA".equals(algorithm) ? "Ed25519" : "RSA");
+    if (!"EdDSA".equals(algorithm)) {
+      generator.initialize(2048);
+    }
+    KeyPair keyPair = generator.generateKeyPair();
+    String kid = thumbprint(keyPair.getPublic());
+    long now = System.currentTimeMillis();
+
+    SigningKey previous = signingKey;
+    if (previous != null) {
+      verificationKeys.computeIfPresent(previous.kid(), (k, key) -> key.retire(now + retentionMillis));
+    }
+    verificationKeys.values().removeIf(key -> key.retiredUntil() <= now);
+    verificationKeys.put(kid, new VerificationKey(keyPair.getPublic(), Long.MAX_VALUE));
+    signingKey = new SigningKey(kid, keyPair.getPrivate());
+    publish();
+  }
+
+  private void loadKeystore() throws GeneralSecurityException, IOException {
+    char[] password = keystorePassword == null ? new char[0] : keystorePassword.toCharArray();
+    KeyStore keyStore = KeyStore.getInstance("PKCS12");
+    try (InputStream in = new DefaultResourceLoader().getResource(keystoreLocation).getInputStream()) {
+      keyStore.load(in, password);
+    }
+    List<String> aliases = new ArrayList<>(Collections.list(keyStore.aliases()));
+    Collections.sort(aliases);
+    for (String alias : aliases) {
+      if (keyStore.isKeyEntry(alias)) {
+        PublicKey publicKey = keyStore.getCertificate(alias).getPublicKey();
+        if (!isSupported(publicKey)) {
+          throw new IllegalStateException(String.format(
+              "La entrada %s del almacén de claves usa %s; solo se admiten claves RSA y Ed25519",
+              alias, publicKey.getAlgorithm()));
+        }
+        verificationKeys.put(alias, new VerificationKey(publicKey, Long.MAX_VALUE));
+      }
+    }
+    String kid = activeKid == null || activeKid.isBlank() ? aliases.get(aliases.size() - 1) : activeKid;
+    Key privateKey = keyStore.getKey(kid, password);
+    if (!(privateKey instanceof PrivateKey)) {
+      throw new IllegalStateException("El almacén de claves no contiene una clave privada para " + kid);
+    }
+    signingKey = new SigningKey(kid, (PrivateKey) privateKey);
+    publish();
+  }
+
+  private void publish() {
+    List<Map<String, Object>> keys = new ArrayList<>();
+    verificationKeys.forEach((kid, key) -> keys.add(toJwk(kid, key.publicKey())));
+    jwks = Map.of("keys", List.copyOf(keys));
+  }
+
+  private static Map<String, Object> toJwk(String kid, PublicKey publicKey) {
+    Map<String, Object> jwk = new LinkedHashMap<>();
+    if (publicKey instanceof RSAPublicKey rsa) {
+      jwk.put("kty", "RSA");
+      jwk.put("kid", kid);
+      jwk.put("use", "sig");
+      jwk.put("alg", "RS256");
+      jwk.put("n", BASE64_URL.encodeToString(unsigned(rsa.getModulus().toByteArray())));
+      jwk.put("e", BASE64_URL.encodeToString(unsigned(rsa.getPublicExponent().toByteArray())));
+    } else if (isEd25519(publicKey)) {
+      // SubjectPublicKeyInfo de Ed25519: la clave pública son los últimos 32 bytes
+      byte[] encoded = publicKey.getEncoded();
+      jwk.put("kty", "OKP");
+      jwk.put("crv", "Ed25519");
+      jwk.put("kid", kid);
+      jwk.put("use", "sig");
+      jwk.put("alg", "EdDSA");
+      jwk.put("x", BASE64_URL.encodeToString(Arrays.copyOfRange(encoded, encoded.length - 32, encoded.length)));
+    } else {
+      throw new IllegalStateException("Tipo de clave no publicable en JWKS: " + publicKey.getAlgorithm());
+    }
+    return jwk;
+  }
+
+  private static boolean isSupported(PublicKey publicKey) {
+    return publicKey instanceof RSAPublicKey || isEd25519(publicKey);
+  }
+
+  private static boolean isEd25519(PublicKey publicKey) {
+    return publicKey instanceof EdECPublicKey edec && NamedParameterSpec.ED25519.getName().equalsIgnoreCase(edec.getParams().getName());
+  }
+
+  private static byte[] unsigned(byte[] bytes) {
+    return bytes.length > 1 && bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+  }
+
+  private static String thumbprint(PublicKey publicKey) throws GeneralSecurityException {
+    byte[] digest = MessageDigest.getInstance("SHA-256").digest(publicKey.getEncoded());
+    return BASE64_URL.encodeToString(Arrays.copyOf(digest, 12));
+  }
+
+  /**
+   * Clave privada activa y su identificador.
+   *
+   * @param kid Identificador publicado en el encabezado del token.
+   * @param privateKey Clave privada de firma.
+   */
+  public record SigningKey(String kid, PrivateKey privateKey) {
+  }
+
+  private record VerificationKey(PublicKey publicKey, long retiredUntil) {
+
+    private VerificationKey retire(long until) {
+      return new VerificationKey(publicKey, until);
+    }
+  }
+}
@@ -1,31 +1,77 @@
 package com.fredgar.pe.security.config;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import com.fredgar.pe.security.user.User;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.security.Key;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 
 /**
  * Servicio para la gestión de tokens JWT (JSON Web Token).
+ * <p>
+ * Los tokens se firman con la clave asimétrica activa de {@link JwtKeyRing} e indican su {@code kid}
+ * en el encabezado; la verificación elige la clave pública por ese {@code kid}. El parser se construye
+ * una sola vez al iniciar. Cada token se verifica con un único
+ * parseo y sus reclamaciones se guardan, hasta su expiración, en una caché acotada indexada por el
+ * SHA-256 del token, de modo que las solicitudes siguientes con el mismo token no repiten la
+ * verificación de la firma.
  */
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
   /**
-   * Clave secreta para firmar los tokens JWT, obtenida del archivo de configuración.
+   * Reclamación que distingue los tokens de actualización de los de acceso.
    */
-  @Value("${application.security.jwt.secret-key}")
-  private String secretKey;
+  static final String TOKEN_TYPE_CLAIM = "token_type";
+
+  /**
+   * Valor de {@link #TOKEN_TYPE_CLAIM} en los tokens de actualización.
+   */
+  static final String REFRESH_TOKEN_TYPE = "refresh";
+
+  /**
+   * Reclamación con el id del usuario.
+   */
+  static final String USER_ID_CLAIM = "uid";
+
+  /**
+   * Reclamación con el rol del usuario.
+   */
+  static final String ROLE_CLAIM = "role";
+
+  /**
+   * Reclamación con la versión de tokens del usuario al momento de emitir el token.
+   */
+  static final String TOKEN_VERSION_CLAIM = "ver";
+
+  /**
+   * Reclamación con la época de revocación del usuario al momento de emitir el token.
+   */
+  static final String REVOCATION_EPOCH_CLAIM = "rev";
+
+  /**
+   * Claves de firma y de verificación por {@code kid}.
+   */
+  private final JwtKeyRing keyRing;
 
   /**
    * Tiempo de expiración del token JWT.
@@ -39,6 +85,73 @@ public class JwtService {
   @Value("${application.security.jwt.refresh-token.expiration}")
   private long refreshExpiration;
 
+  /**
+   * Credenciales que se guardan en la tabla de tokens.
+   */
+  @Value("${application.security.jwt.session-mode}")
+  private SessionMode sessionMode;
+
+  /**
+   * Tiempo de expiración del token de acceso en modo {@link SessionMode#STATELESS}.
+   */
+  @Value("${application.security.jwt.stateless.expiration}")
+  private long statelessExpiration;
+
+  /**
+   * Número máximo de tokens verificados que se mantienen en memoria.
+   */
+  @Value("${application.security.jwt.claims-cache.max-size}")
+  private int claimsCacheMaxSize;
+
+  /**
+   * Parser reutilizable; es inmutable y seguro entre hilos.
+   */
+  private JwtParser parser;
+
+  /**
+   * Tokens ya verificados, indexados por el SHA-256 del token.
+   */
+  private final ConcurrentMap<String, VerifiedJwt> verifiedTokens = new ConcurrentHashMap<>();
+
+  /**
+   * Construye el parser; la clave de verificación se localiza por el {@code kid} de cada token.
+   */
+  @PostConstruct
+  void init() {
+    parser = Jwts.parser().keyLocator(keyRing.locator()).build();
+  }
+
+  /**
+   * Verifica la firma y la expiración de un token con un único parseo.
+   *
+   * @param token Token JWT.
+   * @return Token verificado, o vacío si el token es inválido o expiró.
+   */
+  public Optional<VerifiedJwt> verify(String token) {
+    long now = System.currentTimeMillis();
+    String digest = digest(token);
+    VerifiedJwt cached = verifiedTokens.get(digest);
+    if (cached != null) {
+      if (!cached.isExpired(now)) {
+        return Optional.of(cached);
+      }
+      verifiedTokens.remove(digest, cached);
+    }
+
+    final VerifiedJwt verified;
+    try {
+      Claims claims = parser.parseSignedClaims(token).getPayload();
+      verified = new VerifiedJwt(digest, claims.getSubject(), claims.getExpiration(), claims);
+    } catch (JwtException | IllegalArgumentException e) {
+      return Optional.empty();
+    }
+    if (verified.expiration() == null || verified.isExpired(now)) {
+      return Optional.empty();
+    }
+    remember(digest, verified, now);
+    return Optional.of(verified);
+  }
+
   /**
    * Extrae el nombre de usuario del token JWT.
    *
@@ -46,7 +159,7 @@ public class JwtService {
    * @return Nombre de usuario.
    */
   public String extractUsername(String token) {
-    return extractClaim(token, Claims::getSubject);
+    return verify(token).map(VerifiedJwt::subject).orElse(null);
   }
 
   /**
@@ -55,11 +168,10 @@ public class JwtService {
    * @param token Token JWT.
    * @param claimsResolver Función para resolver la reclamación.
    * @param <T> Tipo de la reclamación.
-   * @return Reclamación solicitada.
+   * @return Reclamación solicitada, o {@code null} si el token es inválido.
    */
   public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-    final Claims claims = extractAllClaims(token);
-    return claimsResolver.apply(claims);
+    return verify(token).map(VerifiedJwt::claims).map(claimsResolver).orElse(null);
   }
 
   /**
@@ -83,11 +195,19 @@ public class JwtService {
       Map<String, Object> extraClaims,
       UserDetails userDetails
   ) {
-    return buildToken(extraClaims, userDetails, jwtExpiration);
+    return buildToken(extraClaims, userDetails, isStateless() ? statelessExpiration : jwtExpiration);
   }
 
   /**
-   * Genera un token de actualización (refresh token) para un usuario.
+   * @return Verdadero si solo se guardan los tokens de actualización; ver {@link SessionMode#STATELESS}.
+   */
+  public boolean isStateless() {
+    return sessionMode == SessionMode.STATELESS;
+  }
+
+  /**
+   * Genera un token de actualización (refresh token) para un usuario. Cada token lleva un {@code jti}
+   * aleatorio: dos rotaciones en el mismo milisegundo no producen el mismo token ni la misma huella.
    *
    * @param userDetails Detalles del usuario.
    * @return Refresh token.
@@ -95,11 +215,15 @@ public class JwtService {
   public String generateRefreshToken(
       UserDetails userDetails
   ) {
-    return buildToken(new HashMap<>(), userDetails, refreshExpiration);
+    Map<String, Object> claims = new HashMap<>();
+    claims.put(TOKEN_TYPE_CLAIM, REFRESH_TOKEN_TYPE);
+    claims.put(Claims.ID, UUID.randomUUID().toString());
+    return buildToken(claims, userDetails, refreshExpiration);
   }
 
   /**
-   * Construye un token JWT.
+   * Construye un token JWT. Si el usuario es un {@link User}, el token incluye firmados su id, su rol,
+   * su versión de tokens y su época de revocación, para que el filtro pueda autenticar sin cargar el usuario.
    *
    * @param extraClaims Reclamaciones adicionales.
    * @param userDetails Detalles del usuario.
@@ -111,13 +235,22 @@ public class JwtService {
       UserDetails userDetails,
       long expiration
   ) {
+    Map<String, Object> claims = new HashMap<>(extraClaims);
+    if (userDetails instanceof User user) {
+      claims.put(USER_ID_CLAIM, user.getId());
+      claims.put(ROLE_CLAIM, user.getRole() == null ? null : user.getRole().name());
+      claims.put(TOKEN_VERSION_CLAIM, user.getTokenVersion());
+      claims.put(REVOCATION_EPOCH_CLAIM, user.getRevocationEpoch());
+    }
+    JwtKeyRing.SigningKey signingKey = keyRing.signingKey();
     return Jwts
         .builder()
-        .setClaims(extraClaims)
+        .header().keyId(signingKey.kid()).and()
+        .setClaims(claims)
         .setSubject(userDetails.getUsername())
         .setIssuedAt(new Date(System.currentTimeMillis()))
         .setExpiration(new Date(System.currentTimeMillis() + expiration))
-        .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+        .signWith(signingKey.privateKey())
         .compact();
   }
 
@@ -129,52 +262,57 @@ public class JwtService {
    * @return Verdadero si el token es válido.
    */
   public boolean isTokenValid(String token, UserDetails userDetails) {
-    final String username = extractUsername(token);
-    return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+    return verify(token)
+        .map(verified -> isTokenValid(verified, userDetails))
+        .orElse(false);
   }
 
   /**
-   * Verifica si un token JWT ha expirado.
+   * Verifica si un token ya verificado pertenece al usuario y sigue vigente.
    *
-   * @param token Token JWT.
-   * @return Verdadero si el token ha expirado.
+   * @param token Token verificado.
+   * @param userDetails Detalles del usuario.
+   * @return Verdadero si el token es válido.
    */
-  private boolean isTokenExpired(String token) {
-    return extractExpiration(token).before(new Date());
+  public boolean isTokenValid(VerifiedJwt token, UserDetails userDetails) {
+    if (userDetails instanceof User user && !Long.valueOf(user.getTokenVersion()).equals(token.tokenVersion())) {
+      return false;
+    }
+    return token.subject() != null
+        && token.subject().equals(userDetails.getUsername())
+        && !token.isExpired(System.currentTimeMillis());
   }
 
   /**
-   * Extrae la fecha de expiración de un token JWT.
+   * Guarda un token verificado. Si la caché está llena se descartan los expirados y, si aún no hay
+   * espacio, se vacía: las entradas se reconstruyen con un parseo en la siguiente solicitud.
    *
-   * @param token Token JWT.
-   * @return Fecha de expiración.
+   * @param digest SHA-256 del token.
+   * @param verified Token verificado.
+   * @param now Instante actual en milisegundos.
    */
-  private Date extractExpiration(String token) {
-    return extractClaim(token, Claims::getExpiration);
+  private void remember(String digest, VerifiedJwt verified, long now) {
+    if (verifiedTokens.size() >= claimsCacheMaxSize) {
+      verifiedTokens.values().removeIf(cached -> cached.isExpired(now));
+      if (verifiedTokens.size() >= claimsCacheMaxSize) {
+        verifiedTokens.clear();
+      }
+    }
+    verifiedTokens.put(digest, verified);
   }
 
   /**
-   * Extrae todas las reclamaciones de un token JWT.
+   * Calcula el SHA-256 de un token; la caché no guarda el token en claro.
    *
    * @param token Token JWT.
-   * @return Reclamaciones del token.
-   */
-  private Claims extractAllClaims(String token) {
-    return Jwts
-        .parser()
-        .setSigningKey(getSignInKey())
-        .build()
-        .parseClaimsJws(token)
-        .getBody();
-  }
-
-  /**
-   * Obtiene la clave de firma para los tokens JWT.
-   *
-   * @return Clave de firma.
+   * @return Huella hexadecimal del token.
    */
-  private Key getSignInKey() {
-    byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-    return Keys.hmacShaKeyFor(keyBytes);
+  public static String digest(String token) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(hash);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
   }
 }
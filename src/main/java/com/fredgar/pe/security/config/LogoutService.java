@@ -1,6 +1,8 @@
 package com.fredgar.pe.security.config;
 
 import com.fredgar.pe.security.token.TokenRepository;
+import com.fredgar.pe.security.token.TokenRevocationIndex;
+import com.fredgar.pe.security.user.UserTokenStates;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -21,6 +23,21 @@ public class LogoutService implements LogoutHandler {
    */
   private final TokenRepository tokenRepository;
 
+  /**
+   * Índice en memoria de tokens revocados.
+   */
+  private final TokenRevocationIndex tokenRevocationIndex;
+
+  /**
+   * Servicio JWT, para verificar el token y conocer el modo de sesión.
+   */
+  private final JwtService jwtService;
+
+  /**
+   * Época de revocación vigente por usuario.
+   */
+  private final UserTokenStates userTokenStates;
+
   /**
    * Procesa el cierre de sesión.
    *
@@ -42,8 +59,24 @@ public class LogoutService implements LogoutHandler {
     }
     jwt = authHeader.substring(7);
 
+    // Revoca el token en memoria antes de persistirlo para que deje de autenticar de inmediato
+    tokenRevocationIndex.revoke(jwt);
+
+    // Sin filas de tokens de acceso, la sesión termina con la época del usuario y sus tokens de actualización
+    if (jwtService.isStateless()) {
+      jwtService.verify(jwt)
+          .filter(verified -> !verified.isRefreshToken())
+          .map(VerifiedJwt::userId)
+          .ifPresent(userId -> {
+            tokenRepository.revokeAllLiveTokensOfUser(userId);
+            userTokenStates.bumpRevocationEpoch(userId);
+          });
+      SecurityContextHolder.clearContext();
+      return;
+    }
+
     // Busca el token en el repositorio
-    var storedToken = tokenRepository.findByToken(jwt)
+    var storedToken = tokenRepository.findByDigest(JwtService.digest(jwt))
         .orElse(null);
 
     // Si el token existe, lo marca como expirado y revocado
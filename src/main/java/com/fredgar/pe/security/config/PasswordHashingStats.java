@@ -0,0 +1,29 @@
+package com.fredgar.pe.security.config;
+
+/**
+ * Métricas del ejecutor de contraseñas.
+ *
+ * @param threads Hilos dedicados al hash de contraseñas.
+ * @param active Operaciones en ejecución.
+ * @param queueDepth Operaciones en espera.
+ * @param queueCapacity Capacidad de la cola.
+ * @param completed Operaciones terminadas.
+ * @param rejected Operaciones rechazadas por cola llena.
+ * @param timedOut Operaciones abandonadas por exceder el tiempo de espera.
+ * @param averageWaitMillis Tiempo medio en cola.
+ * @param averageHashMillis Tiempo medio de cálculo de bcrypt.
+ * @param strength Costo de bcrypt configurado.
+ */
+public record PasswordHashingStats(
+    int threads,
+    int active,
+    int queueDepth,
+    int queueCapacity,
+    long completed,
+    long rejected,
+    long timedOut,
+    double averageWaitMillis,
+    double averageHashMillis,
+    int strength
+) {
+}
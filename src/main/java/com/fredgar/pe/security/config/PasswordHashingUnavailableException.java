@@ -0,0 +1,19 @@
+package com.fredgar.pe.security.config;
+
+import lombok.Getter;
+
+/**
+ * Se lanza cuando el ejecutor de contraseñas no puede atender la operación: la cola está llena
+ * ({@code saturated}) o la operación no terminó dentro del tiempo de espera.
+ */
+@Getter
+public class PasswordHashingUnavailableException extends RuntimeException {
+
+  private final boolean saturated;
+
+  public PasswordHashingUnavailableException(String message, boolean saturated, Throwable cause) {
+    super(message, cause);
+    this.saturated = saturated;
+  }
+
+}
@@ -0,0 +1,224 @@
+package com.fredgar.pe.security.config;
+
+import com.fredgar.pe.security.user.Role;
+import com.fredgar.pe.security.user.User;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Reglas de autorización por ruta compiladas al iniciar en un árbol de segmentos.
+ * <p>
+ * Cada regla guarda su posición de registro y, como en la cadena de {@code requestMatchers}, gana la
+ * primera regla registrada que coincide. Igual que {@code AntPathRequestMatcher}, los segmentos
+ * literales distinguen mayúsculas, {@code *} coincide con un segmento y {@code **} con cero o más, y
+ * una ruta con barra final solo coincide con reglas que terminan en {@code *} o {@code **}. Los roles de una regla
+ * se guardan como máscara de bits, de modo que una decisión es un recorrido del árbol y una prueba de bits.
+ */
+public final class RouteAuthorizationTable implements AuthorizationManager<RequestAuthorizationContext> {
+
+  private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+  private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+  private final Node root;
+  private final Rule fallback;
+
+  private RouteAuthorizationTable(Node root, Rule fallback) {
+    this.root = root;
+    this.fallback = fallback;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @Override
+  public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+    Rule rule = match(path(context.getRequest()));
+    if (rule.roles == Rule.PERMIT_ALL) {
+      return GRANTED;
+    }
+    Authentication current = authentication.get();
+    if (current == null || !current.isAuthenticated() || current instanceof AnonymousAuthenticationToken) {
+      return DENIED;
+    }
+    if (rule.roles == Rule.AUTHENTICATED) {
+      return GRANTED;
+    }
+    return (roleMask(current) & rule.roles) != 0 ? GRANTED : DENIED;
+  }
+
+  /**
+   * @return Regla que aplica a la ruta: la primera registrada que coincide, o la regla por defecto.
+   */
+  Rule match(String path) {
+    String[] segments = segments(path);
+    boolean trailingSlash = path.length() > 1 && path.endsWith("/");
+    Rule best = match(root, segments, 0, trailingSlash, null);
+    return best == null ? fallback : best;
+  }
+
+  private static Rule match(Node node, String[] segments, int position, boolean trailingSlash, Rule best) {
+    // ** coincide con el resto de la ruta, incluido el vacío
+    if (node.anyDepth != null) {
+      best = earlier(best, node.anyDepth);
+    }
+    if (position == segments.length) {
+      if (!trailingSlash) {
+        return earlier(best, node.terminal);
+      }
+      // Como en AntPathMatcher, "/a/" no coincide con "/a" pero sí con "/a/*": el * toma el segmento vacío
+      return node.anySegment == null ? best : earlier(best, node.anySegment.terminal);
+    }
+    Node literal = node.literals.get(segments[position]);
+    if (literal != null) {
+      best = match(literal, segments, position + 1, trailingSlash, best);
+    }
+    if (node.anySegment != null) {
+      best = match(node.anySegment, segments, position + 1, trailingSlash, best);
+    }
+    return best;
+  }
+
+  private static Rule earlier(Rule current, Rule candidate) {
+    if (candidate == null) {
+      return current;
+    }
+    return current == null || candidate.order < current.order ? candidate : current;
+  }
+
+  // El principal es siempre un User en los modos del filtro JWT; las autoridades son el respaldo
+  private static int roleMask(Authentication authentication) {
+    if (authentication.getPrincipal() instanceof User user && user.getRole() != null) {
+      return user.getRole().mask();
+    }
+    int mask = 0;
+    for (GrantedAuthority authority : authentication.getAuthorities()) {
+      String name = authority.getAuthority();
+      if (name != null && name.startsWith("ROLE_")) {
+        for (Role role : Role.values()) {
+          if (name.length() == 5 + role.name().length() && name.endsWith(role.name())) {
+            mask |= role.mask();
+          }
+        }
+      }
+    }
+    return mask;
+  }
+
+  private static String path(HttpServletRequest request) {
+    String path = request.getServletPath();
+    return request.getPathInfo() == null ? path : path + request.getPathInfo();
+  }
+
+  private static String[] segments(String path) {
+    List<String> segments = new ArrayList<>();
+    for (String segment : path.split("/")) {
+      if (!segment.isEmpty()) {
+        segments.add(segment);
+      }
+    }
+    return segments.toArray(String[]::new);
+  }
+
+  /**
+   * Acceso exigido por una regla: todos, cualquier autenticado o una máscara de roles.
+   */
+  static final class Rule {
+
+    static final int PERMIT_ALL = -1;
+    static final int AUTHENTICATED = 0;
+
+    private final int order;
+    private final int roles;
+
+    private Rule(int order, int roles) {
+      this.order = order;
+      this.roles = roles;
+    }
+  }
+
+  private static final class Node {
+    private final Map<String, Node> literals = new HashMap<>();
+    private Node anySegment;
+    private Rule anyDepth;
+    private Rule terminal;
+  }
+
+  /**
+   * Registra las reglas en orden de prioridad y las compila en el árbol.
+   */
+  public static final class Builder {
+
+    private final Node root = new Node();
+    private int order;
+
+    private Builder() {
+    }
+
+    public Builder permitAll(String... patterns) {
+      for (String pattern : patterns) {
+        add(pattern, Rule.PERMIT_ALL);
+      }
+      return this;
+    }
+
+    public Builder authenticated(String... patterns) {
+      for (String pattern : patterns) {
+        add(pattern, Rule.AUTHENTICATED);
+      }
+      return this;
+    }
+
+    public Builder hasAnyRole(String pattern, Role... roles) {
+      int mask = 0;
+      for (Role role : roles) {
+        mask |= role.mask();
+      }
+      add(pattern, mask);
+      return this;
+    }
+
+    /**
+     * @return Tabla compilada; las rutas sin regla exigen autenticación.
+     */
+    public RouteAuthorizationTable build() {
+      return new RouteAuthorizationTable(root, new Rule(Integer.MAX_VALUE, Rule.AUTHENTICATED));
+    }
+
+    private void add(String pattern, int roles) {
+      Rule rule = new Rule(order++, roles);
+      Node node = root;
+      for (String segment : segments(pattern)) {
+        if (segment.equals("**")) {
+          // Como en los patrones Ant registrados, ** solo aparece al final
+          if (node.anyDepth == null) {
+            node.anyDepth = rule;
+          }
+          return;
+        }
+        if (segment.equals("*")) {
+          if (node.anySegment == null) {
+            node.anySegment = new Node();
+          }
+          node = node.anySegment;
+        } else {
+          node = node.literals.computeIfAbsent(segment, key -> new Node());
+        }
+      }
+      if (node.terminal == null) {
+        node.terminal = rule;
+      }
+    }
+  }
+}
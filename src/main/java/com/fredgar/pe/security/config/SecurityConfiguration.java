@@ -1,6 +1,5 @@
 package com.fredgar.pe.security.config;
 
-import com.fredgar.pe.security.user.Permission;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,9 +13,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.authentication.logout.LogoutHandler;
-import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
-import static com.fredgar.pe.security.user.Permission.*;
 import static com.fredgar.pe.security.user.Role.ADMIN;
 import static com.fredgar.pe.security.user.Role.MANAGER;
 import static org.springframework.http.HttpMethod.GET;
@@ -49,39 +46,8 @@ public class SecurityConfiguration {
                     frameOptions.sameOrigin()
                 )
             )
-            .authorizeHttpRequests(req -> req
-                // Permitir acceso a la consola H2, documentación de OpenApi y al punto de entrada de autenticación sin autenticación
-                .requestMatchers(new AntPathRequestMatcher("/h2-console/**")).permitAll()
-                .requestMatchers(new AntPathRequestMatcher("/api/v1/auth/**")).permitAll()
-                .requestMatchers(new AntPathRequestMatcher("/swagger-ui/**")).permitAll() // Interfaz de Swagger
-                .requestMatchers(new AntPathRequestMatcher("/v3/api-docs/**")).permitAll() // Para las definiciones de OpenAPI
-                .requestMatchers(new AntPathRequestMatcher("/swagger-resources/**")).permitAll() // Recursos de Swagger
-                .requestMatchers(new AntPathRequestMatcher("/webjars/**")).permitAll() // Recursos de Swagger desde WebJars
-
-                // Rutas específicas para /api/exchange-rate/v1
-                .requestMatchers(new AntPathRequestMatcher("/api/exchange-rate/v1/convert")).hasAnyRole(ADMIN.name())
-                .requestMatchers(new AntPathRequestMatcher("/api/exchange-rate/v1/create")).hasAnyRole(ADMIN.name())
-                .requestMatchers(new AntPathRequestMatcher("/api/exchange-rate/v1/update/*")).hasAnyRole(ADMIN.name())
-                .requestMatchers(new AntPathRequestMatcher("/api/exchange-rate/v1/all")).hasAnyRole(ADMIN.name(), MANAGER.name())
-                .requestMatchers(new AntPathRequestMatcher("/api/exchange-rate/v1/*")).authenticated()
-
-
-                // Rutas específicas para /api/v1/demo-controller
-                .requestMatchers(new AntPathRequestMatcher("/api/v1/demo-controller/admin")).hasAnyRole(ADMIN.name())
-                .requestMatchers(new AntPathRequestMatcher("/api/v1/demo-controller/admin")).hasAnyAuthority(ADMIN_READ.name())
-                .requestMatchers(new AntPathRequestMatcher("/api/v1/demo-controller/manager")).hasAnyRole(MANAGER.name())
-                .requestMatchers(new AntPathRequestMatcher("/api/v1/demo-controller/manager")).hasAnyAuthority(MANAGER_READ.name())
-
-                .requestMatchers(new AntPathRequestMatcher("/api/v1/demo-controller/public")).authenticated()
-
-                // Requiere roles ADMIN o MANAGER para acceder a rutas de administración y gestión
-                .requestMatchers(new AntPathRequestMatcher("/api/v1/management/**"))
-                .hasAnyRole(ADMIN.name(), MANAGER.name())
-
-                // Todas las demás solicitudes requieren autenticación
-                .anyRequest()
-                .authenticated()
-            )
+            // Las reglas por ruta se compilan una sola vez en RouteAuthorizationTable
+            .authorizeHttpRequests(req -> req.anyRequest().access(routeAuthorizationTable()))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authenticationProvider(authenticationProvider)
             .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
@@ -94,7 +60,42 @@ public class SecurityConfiguration {
         return http.build();
     }
 
+    /**
+     * Reglas de autorización por ruta. Como en una cadena de {@code requestMatchers}, gana la primera
+     * regla que coincide y las rutas sin regla requieren autenticación.
+     */
+    static RouteAuthorizationTable routeAuthorizationTable() {
+        return RouteAuthorizationTable.builder()
+            // Permitir acceso a la consola H2, documentación de OpenApi y al punto de entrada de autenticación sin autenticación
+            .permitAll(
+                "/h2-console/**",
+                "/api/v1/auth/**",
+                "/swagger-ui/**", // Interfaz de Swagger
+                "/v3/api-docs/**", // Para las definiciones de OpenAPI
+                "/swagger-resources/**", // Recursos de Swagger
+                "/webjars/**", // Recursos de Swagger desde WebJars
+                "/.well-known/jwks.json" // Claves públicas de verificación JWT
+            )
+
+            // Rutas específicas para /api/exchange-rate/v1
+            .hasAnyRole("/api/exchange-rate/v1/convert", ADMIN)
+            .hasAnyRole("/api/exchange-rate/v1/convert/batch", ADMIN)
+            .hasAnyRole("/api/exchange-rate/v1/convert/stream", ADMIN)
+            .hasAnyRole("/api/exchange-rate/v1/create", ADMIN)
+            .hasAnyRole("/api/exchange-rate/v1/import", ADMIN)
+            .hasAnyRole("/api/exchange-rate/v1/update/*", ADMIN)
+            .hasAnyRole("/api/exchange-rate/v1/all", ADMIN, MANAGER)
+            .authenticated("/api/exchange-rate/v1/*")
 
+            // Rutas específicas para /api/v1/demo-controller
+            .hasAnyRole("/api/v1/demo-controller/admin", ADMIN)
+            .hasAnyRole("/api/v1/demo-controller/manager", MANAGER)
+            .authenticated("/api/v1/demo-controller/public")
+
+            // Requiere roles ADMIN o MANAGER para acceder a rutas de administración y gestión
+            .hasAnyRole("/api/v1/management/**", ADMIN, MANAGER)
+            .build();
+    }
 }
 
 
@@ -0,0 +1,19 @@
+package com.fredgar.pe.security.config;
+
+/**
+ * Credenciales que se guardan en la tabla {@code token} al iniciar sesión.
+ */
+public enum SessionMode {
+
+  /**
+   * Se guarda cada token de acceso, además de los de actualización; el cierre de sesión revoca ese token en particular.
+   */
+  STATEFUL,
+
+  /**
+   * Solo se guardan los tokens de actualización. Los tokens de acceso son de corta duración y se
+   * revocan con la época de revocación del usuario, que se mantiene en memoria: una solicitud
+   * autenticada no consulta la base de datos.
+   */
+  STATELESS
+}
@@ -0,0 +1,80 @@
+package com.fredgar.pe.security.config;
+
+import com.fredgar.pe.security.user.Role;
+import com.fredgar.pe.security.user.User;
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+/**
+ * Token JWT cuya firma y expiración ya fueron verificadas por {@link JwtService}.
+ *
+ * @param digest SHA-256 del token, usado como clave en las cachés e índices de tokens.
+ * @param subject Nombre de usuario (correo) del token.
+ * @param expiration Fecha de expiración del token.
+ * @param claims Reclamaciones verificadas del token.
+ */
+public record VerifiedJwt(String digest, String subject, Date expiration, Claims claims) {
+
+  /**
+   * Verifica si el token ya expiró.
+   *
+   * @param now Instante de referencia en milisegundos.
+   * @return Verdadero si el token expiró.
+   */
+  public boolean isExpired(long now) {
+    return expiration.getTime() <= now;
+  }
+
+  /**
+   * Indica si el token es de actualización; estos tokens no autentican solicitudes.
+   *
+   * @return Verdadero si el token es de actualización.
+   */
+  public boolean isRefreshToken() {
+    return JwtService.REFRESH_TOKEN_TYPE.equals(claims.get(JwtService.TOKEN_TYPE_CLAIM, String.class));
+  }
+
+  /**
+   * @return Id del usuario, o {@code null} si el token no lo incluye.
+   */
+  public Integer userId() {
+    return claims.get(JwtService.USER_ID_CLAIM, Integer.class);
+  }
+
+  /**
+   * @return Versión de tokens del usuario al emitir el token, o {@code null} si el token no la incluye.
+   */
+  public Long tokenVersion() {
+    Number version = claims.get(JwtService.TOKEN_VERSION_CLAIM, Number.class);
+    return version == null ? null : version.longValue();
+  }
+
+  /**
+   * @return Época de revocación del usuario al emitir el token, o {@code null} si el token no la incluye.
+   */
+  public Long revocationEpoch() {
+    Number epoch = claims.get(JwtService.REVOCATION_EPOCH_CLAIM, Number.class);
+    return epoch == null ? null : epoch.longValue();
+  }
+
+  /**
+   * Construye el usuario autenticado solo con las reclamaciones firmadas, sin consultar la base de datos.
+   *
+   * @return Usuario sin contraseña, o {@code null} si al token le faltan el id, el rol o la versión.
+   */
+  public User toPrincipal() {
+    String role = claims.get(JwtService.ROLE_CLAIM, String.class);
+    Integer userId = userId();
+    Long tokenVersion = tokenVersion();
+    if (role == null || userId == null || tokenVersion == null) {
+      return null;
+    }
+    return User.builder()
+        .id(userId)
+        .email(subject)
+        .role(Role.valueOf(role))
+        .tokenVersion(tokenVersion)
+        .build();
+  }
+}
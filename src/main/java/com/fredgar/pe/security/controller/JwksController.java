@@ -0,0 +1,31 @@
+package com.fredgar.pe.security.controller;
+
+import com.fredgar.pe.security.config.JwtKeyRing;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Publica las claves públicas de verificación de los tokens JWT en formato JWK Set.
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+  private final JwtKeyRing keyRing;
+
+  // Los verificadores guardan las claves por kid y solo vuelven a consultar ante un kid desconocido
+  @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<Map<String, Object>> jwks() {
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+        .body(keyRing.jwks());
+  }
+
+}
@@ -0,0 +1,155 @@
+package com.fredgar.pe.security.token;
+
+import com.fredgar.pe.security.user.UserTokenState;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Almacén compartido entre instancias sobre la tabla {@code revocation_change_log}.
+ * <p>
+ * Cada revocación se agrega al registro con el id de la instancia que la publicó. Cada instancia lee
+ * los cambios nuevos en una consulta indexada por id cada {@code poll-interval} y los entrega a sus
+ * receptores, que mantienen la memoria al día: la revocación llega a las demás instancias en lo que
+ * tarda una consulta, y el filtro JWT sigue sin leer la base de datos por solicitud. Una instancia que
+ * inicia empieza desde el último cambio porque el resto del estado lo reconstruye de las tablas
+ * {@code token} y {@code _user}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "application.security.revocation.store", havingValue = "CHANGELOG")
+public class ChangeLogRevocationStore implements RevocationStore {
+
+  private static final int CHUNK_SIZE = 500;
+
+  /**
+   * Margen para un id asignado antes que otro pero confirmado después. El cursor solo avanza sobre ids
+   * consecutivos; un hueco se salta cuando el id siguiente lleva este margen leído en esta instancia,
+   * medido con su reloj monotónico, de modo que la diferencia de reloj entre nodos no influye.
+   */
+  private static final long COMMIT_GRACE_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+  private final RevocationChangeRepository repository;
+  private final Duration retention;
+  private final String nodeId = UUID.randomUUID().toString();
+  private final List<RevocationListener> listeners = new CopyOnWriteArrayList<>();
+
+  // Solo los usa el hilo del planificador: todos los ids hasta el cursor ya se leyeron, y los
+  // entregados después de un hueco se guardan con el instante en que se leyeron
+  private long cursor;
+  private final NavigableMap<Long, Long> delivered = new TreeMap<>();
+
+  public ChangeLogRevocationStore(
+      RevocationChangeRepository repository,
+      @Value("${application.security.revocation.retention}") Duration retention) {
+    this.repository = repository;
+    this.retention = retention;
+  }
+
+  @PostConstruct
+  void init() {
+    cursor = repository.findMaxId();
+  }
+
+  @Override
+  public void tokenRevoked(String digest, Instant expiresAt) {
+    repository.save(RevocationChange.builder()
+        .nodeId(nodeId)
+        .digest(digest)
+        .expiresAt(expiresAt)
+        .build());
+  }
+
+  @Override
+  public void userStateChanged(Integer userId, UserTokenState state) {
+    repository.save(RevocationChange.builder()
+        .nodeId(nodeId)
+        .userId(userId)
+        .tokenVersion(state.tokenVersion())
+        .revocationEpoch(state.revocationEpoch())
+        .build());
+  }
+
+  @Override
+  public void subscribe(RevocationListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Entrega a los receptores los cambios publicados por otras instancias desde la última lectura.
+   */
+  @Scheduled(fixedDelayString = "${application.security.revocation.poll-interval}")
+  public void poll() {
+    long now = System.nanoTime();
+    Pageable chunk = PageRequest.ofSize(CHUNK_SIZE);
+    long read = cursor;
+    List<RevocationChange> changes;
+    while (!(changes = repository.findByIdGreaterThanOrderByIdAsc(read, chunk)).isEmpty()) {
+      for (RevocationChange change : changes) {
+        if (delivered.putIfAbsent(change.getId(), now) == null && !nodeId.equals(change.getNodeId())) {
+          deliver(change);
+        }
+        read = change.getId();
+      }
+      if (changes.size() < CHUNK_SIZE) {
+        break;
+      }
+    }
+    advanceCursor(now);
+  }
+
+  // Avanza sobre los ids consecutivos; un hueco (transacción sin confirmar o revertida) se salta
+  // cuando el cambio que lo sigue se leyó hace más del margen
+  private void advanceCursor(long now) {
+    Map.Entry<Long, Long> first;
+    while ((first = delivered.firstEntry()) != null
+        && (first.getKey() == cursor + 1 || now - first.getValue() >= COMMIT_GRACE_NANOS)) {
+      cursor = first.getKey();
+      delivered.pollFirstEntry();
+    }
+  }
+
+  /**
+   * Borra los cambios que ya leyeron todas las instancias en ejecución. {@code created_at} lo asigna la
+   * base de datos; frente a la retención, la diferencia de reloj con esta instancia es despreciable.
+   */
+  @Scheduled(
+      initialDelayString = "${application.security.revocation.retention}",
+      fixedDelayString = "${application.security.revocation.retention}")
+  public void purge() {
+    int deleted = repository.deleteCreatedBefore(Instant.now().minus(retention));
+    if (deleted > 0) {
+      log.info("Registro de revocaciones depurado: {} cambios borrados", deleted);
+    }
+  }
+
+  private void deliver(RevocationChange change) {
+    for (RevocationListener listener : listeners) {
+      try {
+        if (change.getDigest() != null) {
+          listener.onTokenRevoked(change.getDigest(), change.getExpiresAt());
+        } else if (change.getUserId() != null) {
+          listener.onUserStateChanged(change.getUserId(),
+              new UserTokenState(change.getTokenVersion(), change.getRevocationEpoch()));
+        }
+      } catch (RuntimeException e) {
+        log.warn("No se pudo aplicar el cambio de revocación {}", change.getId(), e);
+      }
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.fredgar.pe.security.token;
+
+import com.fredgar.pe.security.user.UserTokenState;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Almacén para una sola instancia: las revocaciones ya se aplicaron en memoria y no hay otras
+ * instancias a las que avisar.
+ */
+@Component
+@ConditionalOnProperty(name = "application.security.revocation.store", havingValue = "MEMORY", matchIfMissing = true)
+public class InMemoryRevocationStore implements RevocationStore {
+
+  @Override
+  public void tokenRevoked(String digest, Instant expiresAt) {
+  }
+
+  @Override
+  public void userStateChanged(Integer userId, UserTokenState state) {
+  }
+
+  @Override
+  public void subscribe(RevocationListener listener) {
+  }
+}
@@ -0,0 +1,53 @@
+package com.fredgar.pe.security.token;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SourceType;
+
+import java.time.Instant;
+
+/**
+ * Revocación publicada por una instancia en el registro de cambios compartido. Es la revocación de
+ * un token, si tiene {@code digest}, o el nuevo estado de tokens de un usuario, si tiene {@code userId}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(
+    name = "revocation_change_log",
+    indexes = @Index(name = "idx_revocation_change_log_created_at", columnList = "created_at")
+)
+public class RevocationChange {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "node_id", length = 36, nullable = false)
+  private String nodeId; // instancia que publicó el cambio
+
+  @Column(length = 64)
+  private String digest; // SHA-256 del token revocado
+
+  @Column(name = "expires_at")
+  private Instant expiresAt; // expiración del token revocado
+
+  @Column(name = "user_id")
+  private Integer userId;
+
+  @Column(name = "token_version")
+  private Long tokenVersion;
+
+  @Column(name = "revocation_epoch")
+  private Long revocationEpoch;
+
+  @CreationTimestamp(source = SourceType.DB)
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private Instant createdAt; // asignado con current_timestamp de la base de datos, común a todas las instancias
+}
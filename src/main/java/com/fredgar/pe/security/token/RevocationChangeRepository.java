@@ -0,0 +1,23 @@
+package com.fredgar.pe.security.token;
+
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface RevocationChangeRepository extends JpaRepository<RevocationChange, Long> {
+
+  @Query("select coalesce(max(c.id), 0) from RevocationChange c")
+  long findMaxId();
+
+  List<RevocationChange> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+  @Transactional
+  @Modifying
+  @Query("delete from RevocationChange c where c.createdAt < :cutoff")
+  int deleteCreatedBefore(Instant cutoff);
+}
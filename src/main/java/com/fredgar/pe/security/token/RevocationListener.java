@@ -0,0 +1,26 @@
+package com.fredgar.pe.security.token;
+
+import com.fredgar.pe.security.user.UserTokenState;
+
+import java.time.Instant;
+
+/**
+ * Recibe las revocaciones publicadas por otras instancias a través de un {@link RevocationStore}.
+ * Las revocaciones de la propia instancia ya se aplicaron antes de publicarse y no se reciben.
+ */
+public interface RevocationListener {
+
+  /**
+   * @param digest SHA-256 del token revocado.
+   * @param expiresAt Expiración del token.
+   */
+  default void onTokenRevoked(String digest, Instant expiresAt) {
+  }
+
+  /**
+   * @param userId Id del usuario.
+   * @param state Versión de tokens y época de revocación nuevas del usuario.
+   */
+  default void onUserStateChanged(Integer userId, UserTokenState state) {
+  }
+}
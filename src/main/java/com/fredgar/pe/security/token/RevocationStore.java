@@ -0,0 +1,39 @@
+package com.fredgar.pe.security.token;
+
+import com.fredgar.pe.security.user.UserTokenState;
+
+import java.time.Instant;
+
+/**
+ * Difunde las revocaciones entre las instancias de la aplicación.
+ * <p>
+ * Cada instancia mantiene en memoria el índice de tokens revocados y el estado de tokens de cada
+ * usuario; el filtro JWT solo consulta esa memoria. Quien revoca aplica el cambio localmente y lo
+ * publica aquí, y el almacén lo entrega a los {@link RevocationListener} de las demás instancias.
+ * La implementación se elige con {@code application.security.revocation.store}.
+ */
+public interface RevocationStore {
+
+  /**
+   * Publica la revocación de un token.
+   *
+   * @param digest SHA-256 del token.
+   * @param expiresAt Expiración del token.
+   */
+  void tokenRevoked(String digest, Instant expiresAt);
+
+  /**
+   * Publica el nuevo estado de tokens de un usuario.
+   *
+   * @param userId Id del usuario.
+   * @param state Versión de tokens y época de revocación vigentes.
+   */
+  void userStateChanged(Integer userId, UserTokenState state);
+
+  /**
+   * Registra un receptor de las revocaciones de otras instancias.
+   *
+   * @param listener Receptor.
+   */
+  void subscribe(RevocationListener listener);
+}
@@ -7,25 +7,56 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(
+    uniqueConstraints = @UniqueConstraint(name = "uk_token_digest", columnNames = "digest"),
+    indexes = {
+        @Index(name = "idx_token_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_token_family_id", columnList = "family_id")
+    }
+)
 public class Token {
 
   @Id
   @GeneratedValue
   public Integer id;
 
-  @Column(unique = true)
-  public String token;
+  /**
+   * SHA-256 del JWT en hexadecimal. El JWT no se guarda: una fila filtrada no sirve como credencial.
+   */
+  @Column(length = 64)
+  public String digest;
+
+  /**
+   * Expiración del JWT, necesaria para reconstruir el índice de revocación sin el token.
+   */
+  @Column(name = "expires_at")
+  public Instant expiresAt;
+
+  /**
+   * Familia de un token de actualización: todos los tokens obtenidos por rotación desde el mismo inicio de sesión.
+   */
+  @Column(name = "family_id", length = 36)
+  public String familyId;
 
   @Enumerated(EnumType.STRING)
   public TokenType tokenType = TokenType.BEARER;
 
   public boolean revoked;
 
+  /**
+   * Verdadero si el token de actualización se consumió en una rotación. Una revocación no lo marca:
+   * así presentar de nuevo un token rotado se distingue de presentar uno revocado por un nuevo inicio
+   * de sesión o un cierre de sesión.
+   */
+  public boolean used;
+
   public boolean expired;
 
   @ManyToOne(fetch = FetchType.LAZY)
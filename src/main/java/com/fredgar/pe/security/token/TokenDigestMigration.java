@@ -0,0 +1,94 @@
+package com.fredgar.pe.security.token;
+
+import com.fredgar.pe.security.config.JwtService;
+import com.fredgar.pe.security.config.VerifiedJwt;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Migra las filas de la tabla {@code token} guardadas con el JWT completo en la columna {@code token}.
+ * <p>
+ * Con {@code ddl-auto: update} la columna anterior permanece en la tabla. Al iniciar, cada fila sin
+ * huella recibe el SHA-256 y la expiración de su JWT, y el JWT se borra para que la fila deje de ser
+ * una credencial utilizable. Se procesa por bloques para no retener bloqueos largos. Si la columna
+ * anterior no existe no hay nada que migrar.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenDigestMigration {
+
+  private static final int CHUNK_SIZE = 500;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final JwtService jwtService;
+
+  @PostConstruct
+  public void migrate() {
+    if (!hasLegacyTokenColumn()) {
+      return;
+    }
+    int migrated = 0;
+    List<Object[]> chunk;
+    do {
+      chunk = new ArrayList<>();
+      for (LegacyToken legacy : jdbcTemplate.query(
+          "select id, token from token where digest is null and token is not null limit " + CHUNK_SIZE,
+          (rs, rowNum) -> new LegacyToken(rs.getInt(1), rs.getString(2)))) {
+        chunk.add(toDigestRow(legacy));
+      }
+      if (!chunk.isEmpty()) {
+        jdbcTemplate.batchUpdate(
+            "update token set digest = ?, expires_at = ?, expired = expired or ?, token = null where id = ?",
+            chunk);
+        migrated += chunk.size();
+      }
+    } while (chunk.size() == CHUNK_SIZE);
+
+    if (migrated > 0) {
+      log.info("Tokens migrados a huella SHA-256: {}", migrated);
+    }
+  }
+
+  // Los JWT inválidos o ya expirados se marcan como expirados con la fecha de la migración
+  private Object[] toDigestRow(LegacyToken legacy) {
+    Optional<VerifiedJwt> verified = jwtService.verify(legacy.token());
+    Instant expiresAt = verified.map(jwt -> jwt.expiration().toInstant()).orElseGet(Instant::now);
+    return new Object[]{
+        JwtService.digest(legacy.token()),
+        Timestamp.from(expiresAt),
+        verified.isEmpty(),
+        legacy.id()
+    };
+  }
+
+  private boolean hasLegacyTokenColumn() {
+    return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+      DatabaseMetaData metaData = connection.getMetaData();
+      try (ResultSet columns = metaData.getColumns(null, null, "%", "%")) {
+        while (columns.next()) {
+          if ("token".equalsIgnoreCase(columns.getString("TABLE_NAME"))
+              && "token".equalsIgnoreCase(columns.getString("COLUMN_NAME"))) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }));
+  }
+
+  private record LegacyToken(int id, String token) {
+  }
+}
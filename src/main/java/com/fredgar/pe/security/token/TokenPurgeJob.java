@@ -0,0 +1,76 @@
+package com.fredgar.pe.security.token;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Depuración periódica de la tabla {@code token}.
+ * <p>
+ * Marca como expirados los tokens cuyo JWT ya venció y borra los que vencieron hace más que el
+ * tiempo de retención. Un token revocado se conserva hasta su expiración natural porque el índice de
+ * revocación se reconstruye desde esta tabla al iniciar. Cada bloque se actualiza o borra en su propia
+ * transacción corta para no bloquear los inicios de sesión.
+ */
+@Slf4j
+@Component
+public class TokenPurgeJob {
+
+  private final TokenRepository tokenRepository;
+  private final Duration retention;
+  private final int chunkSize;
+
+  public TokenPurgeJob(
+      TokenRepository tokenRepository,
+      @Value("${application.security.token-purge.retention}") Duration retention,
+      @Value("${application.security.token-purge.chunk-size}") int chunkSize) {
+    this.tokenRepository = tokenRepository;
+    this.retention = retention;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Ejecuta una depuración completa.
+   *
+   * @return Filas marcadas como expiradas y filas borradas.
+   */
+  @Scheduled(
+      initialDelayString = "${application.security.token-purge.interval}",
+      fixedDelayString = "${application.security.token-purge.interval}")
+  public TokenPurgeResult purge() {
+    Instant now = Instant.now();
+    Pageable chunk = PageRequest.ofSize(chunkSize);
+
+    int expired = 0;
+    List<Integer> ids;
+    while (!(ids = tokenRepository.findIdsToExpire(now, chunk)).isEmpty()) {
+      expired += tokenRepository.markExpired(ids);
+    }
+
+    int deleted = 0;
+    Instant cutoff = now.minus(retention);
+    while (!(ids = tokenRepository.findIdsToPurge(cutoff, chunk)).isEmpty()) {
+      deleted += tokenRepository.deleteByIds(ids);
+    }
+
+    TokenPurgeResult result = new TokenPurgeResult(expired, deleted);
+    log.info("Depuración de tokens: {} marcados como expirados, {} borrados", result.expired(), result.deleted());
+    return result;
+  }
+
+  /**
+   * Resultado de una depuración.
+   *
+   * @param expired Tokens marcados como expirados.
+   * @param deleted Tokens borrados.
+   */
+  public record TokenPurgeResult(int expired, int deleted) {
+  }
+}
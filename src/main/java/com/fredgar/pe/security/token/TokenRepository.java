@@ -1,19 +1,80 @@
 package com.fredgar.pe.security.token;
 
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface TokenRepository extends JpaRepository<Token, Integer> {
 
-  @Query(value = """
-      select t from Token t inner join User u\s
-      on t.user.id = u.id\s
-      where u.id = :id and (t.expired = false or t.revoked = false)\s
+  @Transactional
+  @Modifying
+  @Query("""
+      update Token t set t.expired = true, t.revoked = true\s
+      where t.user.id = :userId and t.expired = false and t.revoked = false\s
       """)
-  List<Token> findAllValidTokenByUser(Integer id);
+  int revokeAllLiveTokensOfUser(Integer userId);
 
-  Optional<Token> findByToken(String token);
+  @Transactional
+  @Modifying
+  @Query("""
+      update Token t set t.expired = true, t.revoked = true\s
+      where t.user.id = :userId and t.tokenType = :tokenType and t.expired = false and t.revoked = false\s
+      """)
+  int revokeLiveTokensOfUser(Integer userId, TokenType tokenType);
+
+  /**
+   * Consume un token de actualización vigente al rotarlo. Solo una solicitud concurrente lo consigue.
+   *
+   * @return 1 si el token estaba vigente; 0 si ya fue usado, revocado o expiró.
+   */
+  @Transactional
+  @Modifying
+  @Query("""
+      update Token t set t.used = true, t.expired = true, t.revoked = true\s
+      where t.id = :id and t.used = false and t.expired = false and t.revoked = false\s
+      """)
+  int markUsed(Integer id);
+
+  /**
+   * Indica si un token de actualización se consumió en una rotación, leyendo la fila confirmada.
+   */
+  @Query("select t.used from Token t where t.id = :id")
+  boolean isUsed(Integer id);
+
+  /**
+   * Revoca los tokens aún vigentes de una familia.
+   *
+   * @return Número de tokens de la familia que seguían vigentes.
+   */
+  @Transactional
+  @Modifying
+  @Query("update Token t set t.expired = true, t.revoked = true where t.familyId = :familyId and t.expired = false and t.revoked = false")
+  int revokeFamily(String familyId);
+
+  Optional<Token> findByDigest(String digest);
+
+  List<Token> findAllByRevokedTrueOrExpiredTrue();
+
+  @Query("select t.id from Token t where t.expired = false and t.expiresAt <= :now")
+  List<Integer> findIdsToExpire(Instant now, Pageable pageable);
+
+  @Query("select t.id from Token t where t.expiresAt <= :cutoff")
+  List<Integer> findIdsToPurge(Instant cutoff, Pageable pageable);
+
+  @Transactional
+  @Modifying
+  @Query("update Token t set t.expired = true where t.id in :ids")
+  int markExpired(Collection<Integer> ids);
+
+  @Transactional
+  @Modifying
+  @Query("delete from Token t where t.id in :ids")
+  int deleteByIds(Collection<Integer> ids);
 }
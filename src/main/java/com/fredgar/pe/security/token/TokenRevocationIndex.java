@@ -0,0 +1,119 @@
+package com.fredgar.pe.security.token;
+
+import com.fredgar.pe.security.config.JwtService;
+import com.fredgar.pe.security.config.VerifiedJwt;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Índice en memoria de los tokens revocados, indexados por el SHA-256 del token.
+ * <p>
+ * El filtro de autenticación consulta este índice en lugar de buscar el token en la base de datos.
+ * Cada entrada se conserva hasta la expiración natural del token: después la firma ya no es válida
+ * y la entrada se descarta. La base de datos solo se lee al iniciar para reconstruir el índice; las
+ * revocaciones de otras instancias llegan por el {@link RevocationStore}.
+ */
+@Component
+@DependsOn("tokenDigestMigration")
+@RequiredArgsConstructor
+public class TokenRevocationIndex implements RevocationListener {
+
+  private static final long PRUNE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  private final TokenRepository tokenRepository;
+  private final JwtService jwtService;
+  private final RevocationStore revocationStore;
+
+  /**
+   * Expiración, en milisegundos, de cada token revocado.
+   */
+  private final ConcurrentMap<String, Long> revoked = new ConcurrentHashMap<>();
+
+  private final AtomicLong nextPrune = new AtomicLong();
+
+  @PostConstruct
+  void init() {
+    rebuild();
+    revocationStore.subscribe(this);
+  }
+
+  /**
+   * Reconstruye el índice con los tokens revocados o expirados que aún tienen firma vigente.
+   */
+  public void rebuild() {
+    revoked.clear();
+    long now = System.currentTimeMillis();
+    tokenRepository.findAllByRevokedTrueOrExpiredTrue()
+        .stream()
+        .filter(token -> token.getDigest() != null && token.getExpiresAt() != null)
+        .filter(token -> token.getExpiresAt().toEpochMilli() > now)
+        .forEach(token -> revoked.put(token.getDigest(), token.getExpiresAt().toEpochMilli()));
+  }
+
+  /**
+   * Verifica si un token fue revocado.
+   *
+   * @param token Token verificado.
+   * @return Verdadero si el token fue revocado.
+   */
+  public boolean isRevoked(VerifiedJwt token) {
+    return revoked.containsKey(token.digest());
+  }
+
+  /**
+   * Revoca un token. Los tokens ya inválidos o expirados no se registran porque su firma los rechaza.
+   *
+   * @param token Token JWT.
+   */
+  public void revoke(String token) {
+    jwtService.verify(token)
+        .ifPresent(verified -> revoke(verified.digest(), verified.expiration().toInstant()));
+  }
+
+  /**
+   * Revoca un token guardado a partir de su huella y su expiración.
+   *
+   * @param digest SHA-256 del token.
+   * @param expiresAt Expiración del token.
+   */
+  public void revoke(String digest, Instant expiresAt) {
+    if (apply(digest, expiresAt)) {
+      revocationStore.tokenRevoked(digest, expiresAt);
+    }
+  }
+
+  /**
+   * Aplica la revocación de un token publicada por otra instancia.
+   */
+  @Override
+  public void onTokenRevoked(String digest, Instant expiresAt) {
+    apply(digest, expiresAt);
+  }
+
+  private boolean apply(String digest, Instant expiresAt) {
+    boolean live = digest != null && expiresAt != null && expiresAt.toEpochMilli() > System.currentTimeMillis();
+    if (live) {
+      revoked.put(digest, expiresAt.toEpochMilli());
+    }
+    pruneIfDue();
+    return live;
+  }
+
+  // Descarta como máximo una vez por intervalo las entradas cuyo token ya expiró
+  private void pruneIfDue() {
+    long now = System.currentTimeMillis();
+    long due = nextPrune.get();
+    if (now < due || !nextPrune.compareAndSet(due, now + PRUNE_INTERVAL_MILLIS)) {
+      return;
+    }
+    revoked.values().removeIf(expiration -> expiration <= now);
+  }
+}
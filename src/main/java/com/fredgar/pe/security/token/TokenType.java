@@ -1,5 +1,6 @@
 package com.fredgar.pe.security.token;
 
 public enum TokenType {
-  BEARER
+  BEARER,
+  REFRESH
 }
@@ -0,0 +1,25 @@
+package com.fredgar.pe.security.user;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fredgar.pe.security.auth.AuthenticationResponse;
+
+import java.util.List;
+
+/**
+ * Resultado de una línea del alta masiva.
+ *
+ * @param index Posición del usuario en la solicitud.
+ * @param email Email del usuario.
+ * @param id Id asignado, si el usuario se creó.
+ * @param tokens Tokens emitidos, si se solicitaron.
+ * @param errors Errores de la línea, si se rechazó.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkUserItemResult(
+    int index,
+    String email,
+    Integer id,
+    AuthenticationResponse tokens,
+    List<String> errors
+) {
+}
@@ -0,0 +1,14 @@
+package com.fredgar.pe.security.user;
+
+import com.fredgar.pe.security.auth.RegisterRequest;
+
+import java.util.List;
+
+/**
+ * Solicitud de alta masiva de usuarios.
+ *
+ * @param users Usuarios a registrar.
+ * @param issueTokens Si es verdadero, se emiten tokens de acceso y actualización para cada usuario creado.
+ */
+public record BulkUserRequest(List<RegisterRequest> users, boolean issueTokens) {
+}
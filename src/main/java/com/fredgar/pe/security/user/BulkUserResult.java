@@ -0,0 +1,21 @@
+package com.fredgar.pe.security.user;
+
+import java.util.List;
+
+/**
+ * Resultado del alta masiva de usuarios.
+ *
+ * @param created Usuarios creados.
+ * @param rejected Líneas rechazadas.
+ * @param elapsedMillis Duración total del alta.
+ * @param usersPerSecond Usuarios creados por segundo.
+ * @param items Resultado de cada línea, en el orden de la solicitud.
+ */
+public record BulkUserResult(
+    int created,
+    int rejected,
+    long elapsedMillis,
+    double usersPerSecond,
+    List<BulkUserItemResult> items
+) {
+}
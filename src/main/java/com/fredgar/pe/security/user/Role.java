@@ -1,19 +1,17 @@
 package com.fredgar.pe.security.user;
 
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Enumeración que define los diferentes roles de usuario en el sistema.
  * Cada rol tiene un conjunto asociado de permisos.
  */
-@RequiredArgsConstructor
 public enum Role {
   /**
    * Rol de usuario común, sin permisos especiales.
@@ -54,17 +52,30 @@ public enum Role {
   @Getter
   private final Set<Permission> permissions;
 
+  private final List<SimpleGrantedAuthority> authorities;
+
+  Role(Set<Permission> permissions) {
+    this.permissions = permissions;
+    List<SimpleGrantedAuthority> authorities = new ArrayList<>(permissions.size() + 1);
+    permissions.forEach(permission -> authorities.add(new SimpleGrantedAuthority(permission.getPermission())));
+    authorities.add(new SimpleGrantedAuthority("ROLE_" + name()));
+    this.authorities = List.copyOf(authorities);
+  }
+
   /**
    * Obtiene las autoridades (permisos) del rol en formato compatible con Spring Security.
+   * La lista se calcula una sola vez y es inmutable.
    *
    * @return Lista de SimpleGrantedAuthority, cada uno representando un permiso del rol.
    */
   public List<SimpleGrantedAuthority> getAuthorities() {
-    var authorities = getPermissions()
-        .stream()
-        .map(permission -> new SimpleGrantedAuthority(permission.getPermission()))
-        .collect(Collectors.toList());
-    authorities.add(new SimpleGrantedAuthority("ROLE_" + this.name()));
     return authorities;
   }
+
+  /**
+   * @return Bit del rol, usado por {@code RouteAuthorizationTable} para comparar roles con una máscara.
+   */
+  public int mask() {
+    return 1 << ordinal();
+  }
 }
@@ -11,6 +11,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Clase que representa un usuario en el sistema. Implementa la interfaz UserDetails
@@ -21,7 +22,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "_user")
+@Table(name = "_user", uniqueConstraints = @UniqueConstraint(name = "uk_user_email", columnNames = "email"))
 public class User implements UserDetails {
 
   @Id
@@ -29,15 +30,49 @@ public class User implements UserDetails {
   private Integer id;
   private String firstname;
   private String lastname;
+  @Column(nullable = false)
   private String email;
   private String password;
 
   @Enumerated(EnumType.STRING)
   private Role role;
 
+  /**
+   * Versión de los tokens del usuario. Al incrementarse, los tokens emitidos con una versión
+   * anterior dejan de ser válidos.
+   */
+  @Column(nullable = false)
+  private long tokenVersion;
+
+  /**
+   * Época de revocación de las sesiones del usuario. Al incrementarse, los tokens de acceso emitidos
+   * con una época anterior dejan de ser válidos sin modificar las filas de la tabla {@code token}.
+   */
+  @Column(nullable = false)
+  private long revocationEpoch;
+
   @OneToMany(mappedBy = "user")
   private List<Token> tokens;
 
+  /**
+   * Normaliza un email para guardarlo y buscarlo siempre de la misma forma.
+   *
+   * @param email Email ingresado.
+   * @return Email sin espacios y en minúsculas, o {@code null} si no se indicó.
+   */
+  public static String normalizeEmail(String email) {
+    return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Normaliza el email antes de insertarlo o actualizarlo.
+   */
+  @PrePersist
+  @PreUpdate
+  void normalize() {
+    email = normalizeEmail(email);
+  }
+
   /**
       * Devuelve las autoridades (permisos) del usuario, basadas en su rol.
       *
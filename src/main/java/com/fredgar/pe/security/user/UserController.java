@@ -1,8 +1,12 @@
 package com.fredgar.pe.security.user;
 
+import com.fredgar.pe.security.config.PasswordHashingStats;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -22,6 +26,11 @@ public class UserController {
      */
     private final UserService service;
 
+    /**
+     * Servicio de alta masiva de usuarios.
+     */
+    private final UserProvisioningService provisioningService;
+
     /**
      * Endpoint para cambiar la contraseña de un usuario.
      *
@@ -37,4 +46,38 @@ public class UserController {
         service.changePassword(request, connectedUser);
         return ResponseEntity.ok().build();
     }
+
+    /**
+     * Endpoint para consultar las métricas de la caché de usuarios.
+     *
+     * @return ResponseEntity con aciertos, fallos, tamaño y tasa de aciertos.
+     */
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserDetailsCacheStats> getCacheStats() {
+        return ResponseEntity.ok(service.userCacheStats());
+    }
+
+    /**
+     * Endpoint para consultar las métricas del ejecutor de contraseñas.
+     *
+     * @return ResponseEntity con la profundidad de cola, los rechazos y la latencia de bcrypt.
+     */
+    @GetMapping("/password-hashing/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PasswordHashingStats> getPasswordHashingStats() {
+        return ResponseEntity.ok(service.passwordHashingStats());
+    }
+
+    /**
+     * Endpoint para registrar usuarios en lote.
+     *
+     * @param request Usuarios a registrar y si se emiten tokens.
+     * @return ResponseEntity con el resultado de cada línea y el resumen de rendimiento.
+     */
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkUserResult> provisionUsers(@RequestBody BulkUserRequest request) {
+        return ResponseEntity.ok(provisioningService.provision(request));
+    }
 }
@@ -0,0 +1,151 @@
+package com.fredgar.pe.security.user;
+
+import com.fredgar.pe.security.token.RevocationListener;
+import com.fredgar.pe.security.token.RevocationStore;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché acotada y con tiempo de vida de los usuarios cargados por email.
+ * <p>
+ * El filtro JWT carga el usuario en cada solicitud autenticada; con esta caché las solicitudes
+ * repetidas no consultan la base de datos. Cada lectura devuelve una copia desvinculada de la sesión
+ * JPA, de modo que una solicitud no puede modificar el usuario que ven las demás. Los cambios de
+ * contraseña o de rol deben llamar a {@link #invalidate(String)}; los de otras instancias descartan el
+ * usuario al llegar por el {@link RevocationStore}.
+ */
+@Component
+public class UserDetailsCache implements UserDetailsService, UserDetailsPasswordService, RevocationListener {
+
+  private final UserRepository repository;
+  private final RevocationStore revocationStore;
+  private final int maxSize;
+  private final long ttlMillis;
+
+  private final ConcurrentMap<String, Entry> users = new ConcurrentHashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public UserDetailsCache(
+      UserRepository repository,
+      RevocationStore revocationStore,
+      @Value("${application.security.user-cache.max-size}") int maxSize,
+      @Value("${application.security.user-cache.ttl}") Duration ttl) {
+    this.repository = repository;
+    this.revocationStore = revocationStore;
+    this.maxSize = maxSize;
+    this.ttlMillis = ttl.toMillis();
+  }
+
+  @PostConstruct
+  void init() {
+    revocationStore.subscribe(this);
+  }
+
+  /**
+   * Carga un usuario por su email, desde la caché si la entrada sigue vigente.
+   *
+   * @param username Email del usuario.
+   * @return Copia del usuario.
+   * @throws UsernameNotFoundException si el usuario no existe.
+   */
+  @Override
+  public User loadUserByUsername(String username) throws UsernameNotFoundException {
+    String email = User.normalizeEmail(username);
+    long now = System.currentTimeMillis();
+    Entry entry = users.get(email);
+    if (entry != null && entry.expiresAt > now) {
+      hits.increment();
+      return copyOf(entry.user);
+    }
+
+    misses.increment();
+    User user = repository.findByEmail(email)
+        .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    remember(email, copyOf(user), now);
+    return user;
+  }
+
+  /**
+   * Guarda el hash recalculado al iniciar sesión con un costo de bcrypt distinto. La contraseña no
+   * cambia, así que la versión de tokens se mantiene.
+   *
+   * @param user Usuario autenticado.
+   * @param newPassword Nuevo hash de la misma contraseña.
+   * @return Usuario con el nuevo hash.
+   */
+  @Override
+  public UserDetails updatePassword(UserDetails user, String newPassword) {
+    User stored = repository.findByEmail(User.normalizeEmail(user.getUsername()))
+        .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    stored.setPassword(newPassword);
+    repository.save(stored);
+    invalidate(stored.getEmail());
+    return copyOf(stored);
+  }
+
+  /**
+   * Descarta el usuario de la caché para que la siguiente solicitud lo lea de la base de datos.
+   *
+   * @param email Email del usuario.
+   */
+  public void invalidate(String email) {
+    users.remove(User.normalizeEmail(email));
+  }
+
+  /**
+   * Descarta el usuario cuyo estado de tokens cambió en otra instancia, por ejemplo tras un cambio de contraseña.
+   */
+  @Override
+  public void onUserStateChanged(Integer userId, UserTokenState state) {
+    users.values().removeIf(entry -> userId.equals(entry.user.getId()));
+  }
+
+  /**
+   * @return Métricas de aciertos y fallos de la caché.
+   */
+  public UserDetailsCacheStats stats() {
+    long hitCount = hits.sum();
+    long missCount = misses.sum();
+    long total = hitCount + missCount;
+    return new UserDetailsCacheStats(hitCount, missCount, users.size(), total == 0 ? 0 : (double) hitCount / total);
+  }
+
+  // Si la caché está llena se descartan las entradas vencidas y, si aún no hay espacio, se vacía
+  private void remember(String email, User user, long now) {
+    if (users.size() >= maxSize) {
+      users.values().removeIf(cached -> cached.expiresAt <= now);
+      if (users.size() >= maxSize) {
+        users.clear();
+      }
+    }
+    users.put(email, new Entry(user, now + ttlMillis));
+  }
+
+  // Sin la colección perezosa de tokens: la copia vive fuera de la sesión JPA
+  private static User copyOf(User user) {
+    return User.builder()
+        .id(user.getId())
+        .firstname(user.getFirstname())
+        .lastname(user.getLastname())
+        .email(user.getEmail())
+        .password(user.getPassword())
+        .role(user.getRole())
+        .tokenVersion(user.getTokenVersion())
+        .revocationEpoch(user.getRevocationEpoch())
+        .build();
+  }
+
+  private record Entry(User user, long expiresAt) {
+  }
+}
@@ -0,0 +1,12 @@
+package com.fredgar.pe.security.user;
+
+/**
+ * Métricas de la caché de usuarios.
+ *
+ * @param hits Lecturas resueltas desde la caché.
+ * @param misses Lecturas que consultaron la base de datos.
+ * @param size Usuarios en la caché.
+ * @param hitRate Proporción de aciertos sobre el total de lecturas.
+ */
+public record UserDetailsCacheStats(long hits, long misses, int size, double hitRate) {
+}
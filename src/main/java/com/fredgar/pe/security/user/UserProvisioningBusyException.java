@@ -0,0 +1,12 @@
+package com.fredgar.pe.security.user;
+
+/**
+ * Se lanza cuando ya se está procesando el número máximo de altas masivas simultáneas.
+ */
+public class UserProvisioningBusyException extends RuntimeException {
+
+  public UserProvisioningBusyException(String message) {
+    super(message);
+  }
+
+}
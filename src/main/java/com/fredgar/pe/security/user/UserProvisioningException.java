@@ -0,0 +1,12 @@
+package com.fredgar.pe.security.user;
+
+/**
+ * Se lanza cuando una solicitud de alta masiva no puede procesarse, por ejemplo si excede el tamaño máximo.
+ */
+public class UserProvisioningException extends RuntimeException {
+
+  public UserProvisioningException(String message) {
+    super(message);
+  }
+
+}
@@ -0,0 +1,274 @@
+package com.fredgar.pe.security.user;
+
+import com.fredgar.pe.security.auth.AuthenticationService;
+import com.fredgar.pe.security.auth.RegisterRequest;
+import com.fredgar.pe.security.config.BoundedPasswordEncoder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Alta masiva de usuarios.
+ * <p>
+ * Las líneas se validan y se comparan con los emails ya registrados en consultas por bloque. Cada
+ * bloque calcula sus hashes bcrypt en paralelo en un {@link ForkJoinPool} acotado a {@code parallelism}
+ * hilos y se inserta con el batching JDBC de Hibernate antes de pasar al siguiente. Un bloque que choca
+ * con un registro concurrente se reintenta sin los emails ya tomados. Como mucho se procesan
+ * {@code max-concurrent} lotes a la vez. Los tokens solo se emiten si la solicitud los pide.
+ */
+@Slf4j
+@Service
+public class UserProvisioningService {
+
+  private final UserRepository repository;
+  private final BoundedPasswordEncoder passwordEncoder;
+  private final UserTokenStates userTokenStates;
+  private final AuthenticationService authenticationService;
+  private final int maxSize;
+  private final int chunkSize;
+  private final int maxConcurrent;
+  private final Semaphore admissions;
+  private final ForkJoinPool hashingPool;
+
+  public UserProvisioningService(
+      UserRepository repository,
+      BoundedPasswordEncoder passwordEncoder,
+      UserTokenStates userTokenStates,
+      AuthenticationService authenticationService,
+      @Value("${application.security.user-provisioning.max-size}") int maxSize,
+      @Value("${application.security.user-provisioning.chunk-size}") int chunkSize,
+      @Value("${application.security.user-provisioning.parallelism}") int parallelism,
+      @Value("${application.security.user-provisioning.max-concurrent}") int maxConcurrent) {
+    this.repository = repository;
+    this.passwordEncoder = passwordEncoder;
+    this.userTokenStates = userTokenStates;
+    this.authenticationService = authenticationService;
+    this.maxSize = maxSize;
+    this.chunkSize = chunkSize;
+    this.maxConcurrent = maxConcurrent;
+    this.admissions = new Semaphore(maxConcurrent);
+    this.hashingPool = new ForkJoinPool(parallelism, pool -> {
+      ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      thread.setName("user-provisioning-" + thread.getPoolIndex());
+      return thread;
+    }, null, false);
+  }
+
+  /**
+   * Registra un lote de usuarios.
+   *
+   * @param request Usuarios a registrar y si se emiten tokens.
+   * @return Resultado de cada línea y resumen de rendimiento.
+   * @throws UserProvisioningException si el lote excede el tamaño máximo.
+   * @throws UserProvisioningBusyException si ya se están procesando {@code max-concurrent} lotes.
+   */
+  public BulkUserResult provision(BulkUserRequest request) {
+    List<RegisterRequest> rows = request.users() == null ? List.of() : request.users();
+    if (rows.size() > maxSize) {
+      throw new UserProvisioningException(String.format("El lote no puede tener más de %d usuarios", maxSize));
+    }
+    // Los lotes comparten el pool de hashes y el pool de conexiones: los que exceden el límite se rechazan sin esperar
+    if (!admissions.tryAcquire()) {
+      throw new UserProvisioningBusyException(
+          String.format("Ya hay %d altas masivas en curso; vuelva a intentarlo más tarde", maxConcurrent));
+    }
+    try {
+      return provisionAdmitted(request, rows);
+    } finally {
+      admissions.release();
+    }
+  }
+
+  private BulkUserResult provisionAdmitted(BulkUserRequest request, List<RegisterRequest> rows) {
+    long startedAt = System.nanoTime();
+    BulkUserItemResult[] results = new BulkUserItemResult[rows.size()];
+
+    // Validación y emails repetidos dentro del lote
+    List<Integer> accepted = new ArrayList<>();
+    Set<String> seen = new HashSet<>();
+    for (int i = 0; i < rows.size(); i++) {
+      RegisterRequest row = rows.get(i);
+      List<String> errors = validate(row);
+      if (errors.isEmpty() && !seen.add(User.normalizeEmail(row.getEmail()))) {
+        errors.add("El email está repetido en el lote");
+      }
+      if (errors.isEmpty()) {
+        accepted.add(i);
+      } else {
+        results[i] = rejected(i, row, errors);
+      }
+    }
+
+    // Emails ya registrados, en una consulta por bloque
+    Set<String> existing = new HashSet<>();
+    for (List<Integer> chunk : chunks(accepted)) {
+      existing.addAll(repository.findExistingEmails(chunk.stream()
+          .map(i -> User.normalizeEmail(rows.get(i).getEmail()))
+          .toList()));
+    }
+    accepted.removeIf(i -> {
+      if (!existing.contains(User.normalizeEmail(rows.get(i).getEmail()))) {
+        return false;
+      }
+      results[i] = rejected(i, rows.get(i), List.of("El email ya está registrado"));
+      return true;
+    });
+
+    int created = 0;
+    for (List<Integer> chunk : chunks(accepted)) {
+      // Los hashes se calculan por bloque: la primera inserción no espera a todo el lote y solo se
+      // mantienen en memoria los hashes de un bloque
+      List<String> hashes = passwordEncoder.encodeAll(
+          chunk.stream().map(i -> rows.get(i).getPassword()).toList(), hashingPool);
+      try {
+        created += recordCreated(request, rows, chunk, repository.saveAll(newUsers(rows, chunk, hashes)), results);
+      } catch (DataIntegrityViolationException e) {
+        // Otro registro concurrente tomó alguno de los emails: el bloque se revierte y se reintenta sin ellos
+        log.warn("Conflicto de integridad en un bloque de alta masiva; se reintenta sin los emails ya registrados", e);
+        created += retryWithoutRegistered(request, rows, chunk, hashes, results);
+      }
+    }
+
+    long elapsedNanos = System.nanoTime() - startedAt;
+    return new BulkUserResult(
+        created,
+        rows.size() - created,
+        elapsedNanos / 1_000_000,
+        elapsedNanos == 0 ? 0 : created * 1_000_000_000.0 / elapsedNanos,
+        Arrays.asList(results));
+  }
+
+  /**
+   * Vuelve a guardar un bloque revertido por un conflicto: descarta los emails registrados mientras
+   * tanto y guarda el resto en un solo lote; si vuelve a haber conflicto, guarda línea por línea.
+   *
+   * @return Número de usuarios creados.
+   */
+  private int retryWithoutRegistered(
+      BulkUserRequest request, List<RegisterRequest> rows, List<Integer> chunk, List<String> hashes,
+      BulkUserItemResult[] results) {
+    Set<String> registered = repository.findExistingEmails(chunk.stream()
+        .map(i -> User.normalizeEmail(rows.get(i).getEmail()))
+        .toList());
+    List<Integer> remaining = new ArrayList<>(chunk.size());
+    List<String> remainingHashes = new ArrayList<>(chunk.size());
+    for (int j = 0; j < chunk.size(); j++) {
+      int i = chunk.get(j);
+      if (registered.contains(User.normalizeEmail(rows.get(i).getEmail()))) {
+        results[i] = rejected(i, rows.get(i), List.of("El email ya está registrado"));
+      } else {
+        remaining.add(i);
+        remainingHashes.add(hashes.get(j));
+      }
+    }
+    if (remaining.isEmpty()) {
+      return 0;
+    }
+
+    try {
+      return recordCreated(request, rows, remaining, repository.saveAll(newUsers(rows, remaining, remainingHashes)), results);
+    } catch (DataIntegrityViolationException e) {
+      int created = 0;
+      for (int j = 0; j < remaining.size(); j++) {
+        int i = remaining.get(j);
+        try {
+          User user = repository.save(newUser(rows.get(i), remainingHashes.get(j)));
+          created += recordCreated(request, rows, List.of(i), List.of(user), results);
+        } catch (DataIntegrityViolationException rowConflict) {
+          results[i] = rejected(i, rows.get(i), List.of("El email ya está registrado"));
+        }
+      }
+      return created;
+    }
+  }
+
+  /**
+   * Registra el resultado de los usuarios guardados y, si se pidieron, emite sus tokens.
+   *
+   * @return Número de usuarios creados.
+   */
+  private int recordCreated(
+      BulkUserRequest request, List<RegisterRequest> rows, List<Integer> indexes, List<User> saved,
+      BulkUserItemResult[] results) {
+    for (int j = 0; j < indexes.size(); j++) {
+      User user = saved.get(j);
+      userTokenStates.track(user);
+      results[indexes.get(j)] = new BulkUserItemResult(
+          indexes.get(j),
+          user.getEmail(),
+          user.getId(),
+          request.issueTokens() ? authenticationService.startSession(user) : null,
+          null);
+    }
+    return indexes.size();
+  }
+
+  // Entidades nuevas en cada intento: las de un lote revertido ya tienen id asignado
+  private static List<User> newUsers(List<RegisterRequest> rows, List<Integer> indexes, List<String> hashes) {
+    List<User> users = new ArrayList<>(indexes.size());
+    for (int j = 0; j < indexes.size(); j++) {
+      users.add(newUser(rows.get(indexes.get(j)), hashes.get(j)));
+    }
+    return users;
+  }
+
+  private static User newUser(RegisterRequest row, String hash) {
+    return User.builder()
+        .firstname(row.getFirstname())
+        .lastname(row.getLastname())
+        .email(row.getEmail())
+        .password(hash)
+        .role(row.getRole())
+        .build();
+  }
+
+  /**
+   * Detiene el pool de hashes al cerrar el contexto.
+   */
+  @PreDestroy
+  void shutdown() {
+    hashingPool.shutdown();
+  }
+
+  private List<String> validate(RegisterRequest row) {
+    List<String> errors = new ArrayList<>();
+
+    if (row == null) {
+      errors.add("La línea del usuario no puede ser nula");
+      return errors;
+    }
+    if (row.getEmail() == null || row.getEmail().isBlank() || !row.getEmail().contains("@")) {
+      errors.add("El email es obligatorio y debe ser válido");
+    }
+    if (row.getPassword() == null || row.getPassword().isEmpty()) {
+      errors.add("La contraseña es obligatoria");
+    }
+    if (row.getRole() == null) {
+      errors.add("El rol es obligatorio");
+    }
+    return errors;
+  }
+
+  private static BulkUserItemResult rejected(int index, RegisterRequest row, List<String> errors) {
+    return new BulkUserItemResult(index, row == null ? null : row.getEmail(), null, null, errors);
+  }
+
+  private List<List<Integer>> chunks(List<Integer> indexes) {
+    List<List<Integer>> chunks = new ArrayList<>();
+    for (int from = 0; from < indexes.size(); from += chunkSize) {
+      chunks.add(indexes.subList(from, Math.min(from + chunkSize, indexes.size())));
+    }
+    return chunks;
+  }
+}
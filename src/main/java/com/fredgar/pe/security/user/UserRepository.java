@@ -1,9 +1,15 @@
 package com.fredgar.pe.security.user;
 
 
+import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Interfaz del repositorio para la entidad User.
@@ -19,4 +25,52 @@ public interface UserRepository extends JpaRepository<User, Integer> {
    */
   Optional<User> findByEmail(String email);
 
+  /**
+   * Obtiene, de una lista de emails normalizados, los que ya están registrados.
+   *
+   * @param emails Emails a verificar.
+   * @return Emails ya registrados.
+   */
+  @Query("select u.email from User u where u.email in :emails")
+  Set<String> findExistingEmails(Collection<String> emails);
+
+  /**
+   * Obtiene la versión de tokens y la época de revocación de un usuario sin cargar la entidad.
+   *
+   * @param id El id del usuario.
+   * @return El estado de tokens, o un Optional vacío si el usuario no existe.
+   */
+  @Query("select new com.fredgar.pe.security.user.UserTokenState(u.tokenVersion, u.revocationEpoch) from User u where u.id = :id")
+  Optional<UserTokenState> findTokenStateById(Integer id);
+
+  /**
+   * Obtiene el id, la versión de tokens y la época de revocación de todos los usuarios en una sola consulta.
+   *
+   * @return Filas {@code [id, tokenVersion, revocationEpoch]}.
+   */
+  @Query("select u.id, u.tokenVersion, u.revocationEpoch from User u")
+  List<Object[]> findAllTokenStates();
+
+  /**
+   * Incrementa la versión de tokens de un usuario.
+   *
+   * @param id El id del usuario.
+   * @return Número de filas actualizadas.
+   */
+  @Transactional
+  @Modifying
+  @Query("update User u set u.tokenVersion = u.tokenVersion + 1 where u.id = :id")
+  int incrementTokenVersion(Integer id);
+
+  /**
+   * Incrementa la época de revocación de un usuario.
+   *
+   * @param id El id del usuario.
+   * @return Número de filas actualizadas.
+   */
+  @Transactional
+  @Modifying
+  @Query("update User u set u.revocationEpoch = u.revocationEpoch + 1 where u.id = :id")
+  int incrementRevocationEpoch(Integer id);
+
 }
@@ -1,8 +1,9 @@
 package com.fredgar.pe.security.user;
 
+import com.fredgar.pe.security.config.BoundedPasswordEncoder;
+import com.fredgar.pe.security.config.PasswordHashingStats;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.security.Principal;
@@ -17,13 +18,23 @@ public class UserService {
     /**
      * Codificador de contraseñas para realizar operaciones de codificación y verificación.
      */
-    private final PasswordEncoder passwordEncoder;
+    private final BoundedPasswordEncoder passwordEncoder;
 
     /**
      * Repositorio de usuarios para interactuar con la base de datos.
      */
     private final UserRepository repository;
 
+    /**
+     * Caché de usuarios que debe invalidarse cuando cambian sus credenciales.
+     */
+    private final UserDetailsCache userDetailsCache;
+
+    /**
+     * Versiones de tokens por usuario; se incrementan cuando cambian las credenciales.
+     */
+    private final UserTokenStates userTokenStates;
+
     /**
      * Cambia la contraseña de un usuario.
      *
@@ -33,8 +44,9 @@ public class UserService {
      */
     public void changePassword(ChangePasswordRequest request, Principal connectedUser) {
 
-        // Obtiene el usuario actual a partir del objeto Principal
-        var user = (User) ((UsernamePasswordAuthenticationToken) connectedUser).getPrincipal();
+        // Obtiene el usuario actual; el principal puede venir solo de las reclamaciones del token, sin contraseña
+        var principal = (User) ((UsernamePasswordAuthenticationToken) connectedUser).getPrincipal();
+        var user = repository.findById(principal.getId()).orElseThrow();
 
         // Verifica si la contraseña actual es correcta
         if (!passwordEncoder.matches(request.getCurrentPassword(), user.getPassword())) {
@@ -51,5 +63,27 @@ public class UserService {
 
         // Guarda la nueva contraseña en la base de datos
         repository.save(user);
+
+        // Invalida los tokens emitidos con la contraseña anterior y el usuario en caché
+        userTokenStates.bumpTokenVersion(user.getId());
+        userDetailsCache.invalidate(user.getEmail());
+    }
+
+    /**
+     * Obtiene las métricas de la caché de usuarios.
+     *
+     * @return Aciertos, fallos, tamaño y tasa de aciertos.
+     */
+    public UserDetailsCacheStats userCacheStats() {
+        return userDetailsCache.stats();
+    }
+
+    /**
+     * Obtiene las métricas del ejecutor de contraseñas.
+     *
+     * @return Profundidad de cola, rechazos y latencia de bcrypt.
+     */
+    public PasswordHashingStats passwordHashingStats() {
+        return passwordEncoder.stats();
     }
 }
\ No newline at end of file
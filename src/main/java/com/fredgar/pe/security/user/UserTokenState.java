@@ -0,0 +1,10 @@
+package com.fredgar.pe.security.user;
+
+/**
+ * Contadores que deciden si un token de un usuario sigue vigente.
+ *
+ * @param tokenVersion Versión de tokens; cambia con las credenciales o el rol e invalida todos los tokens.
+ * @param revocationEpoch Época de revocación; cambia al revocar todas las sesiones e invalida los tokens de acceso anteriores.
+ */
+public record UserTokenState(long tokenVersion, long revocationEpoch) {
+}
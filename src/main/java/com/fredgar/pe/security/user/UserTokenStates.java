@@ -0,0 +1,157 @@
+package com.fredgar.pe.security.user;
+
+import com.fredgar.pe.security.config.SessionMode;
+import com.fredgar.pe.security.token.RevocationListener;
+import com.fredgar.pe.security.token.RevocationStore;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Versión de tokens y época de revocación vigentes de cada usuario, en memoria.
+ * <p>
+ * Cada estado se lee de la base de datos la primera vez que se necesita y después solo cambia con
+ * {@link #bumpTokenVersion(Integer)} o {@link #bumpRevocationEpoch(Integer)}; así validar un token no
+ * consulta la base de datos ni las filas de la tabla {@code token}. En modo {@code STATELESS} todos los
+ * estados se cargan al iniciar, de modo que ni siquiera la primera solicitud de un usuario consulta la base de datos.
+ * Cada incremento se publica en el {@link RevocationStore} y los de otras instancias llegan por el mismo almacén.
+ * Dentro de una transacción, el incremento se registra en el almacén en esa misma transacción y la
+ * memoria solo cambia cuando confirma, de modo que una rotación revertida no deja una época que la
+ * base de datos no tiene.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserTokenStates implements RevocationListener {
+
+  private final UserRepository repository;
+  private final RevocationStore revocationStore;
+
+  private final ConcurrentMap<Integer, UserTokenState> states = new ConcurrentHashMap<>();
+
+  @Value("${application.security.jwt.session-mode}")
+  private SessionMode sessionMode;
+
+  /**
+   * Carga en una sola consulta el estado de todos los usuarios cuando la sesión es {@code STATELESS}.
+   */
+  @PostConstruct
+  void preload() {
+    revocationStore.subscribe(this);
+    if (sessionMode != SessionMode.STATELESS) {
+      return;
+    }
+    for (Object[] row : repository.findAllTokenStates()) {
+      states.putIfAbsent((Integer) row[0], new UserTokenState((Long) row[1], (Long) row[2]));
+    }
+  }
+
+  /**
+   * Publica el estado de un usuario recién guardado, para que su primera solicitud no lo lea de la base de datos.
+   *
+   * @param user Usuario guardado.
+   */
+  public void track(User user) {
+    states.putIfAbsent(user.getId(), new UserTokenState(user.getTokenVersion(), user.getRevocationEpoch()));
+  }
+
+  /**
+   * Verifica si un token de acceso fue emitido con la versión y la época vigentes del usuario.
+   *
+   * @param userId Id del usuario.
+   * @param tokenVersion Versión incluida en el token.
+   * @param revocationEpoch Época de revocación incluida en el token.
+   * @return Verdadero si ambas son las vigentes; falso si alguna falta, es anterior o el usuario no existe.
+   */
+  public boolean isCurrent(Integer userId, Long tokenVersion, Long revocationEpoch) {
+    if (userId == null || tokenVersion == null || revocationEpoch == null) {
+      return false;
+    }
+    return current(userId)
+        .map(state -> state.tokenVersion() == tokenVersion && state.revocationEpoch() == revocationEpoch)
+        .orElse(false);
+  }
+
+  /**
+   * Incrementa la versión de tokens del usuario; todos sus tokens emitidos antes dejan de ser válidos.
+   *
+   * @param userId Id del usuario.
+   */
+  public void bumpTokenVersion(Integer userId) {
+    repository.incrementTokenVersion(userId);
+    reload(userId);
+  }
+
+  /**
+   * Incrementa la época de revocación del usuario; sus tokens de acceso emitidos antes dejan de ser válidos.
+   *
+   * @param userId Id del usuario.
+   * @return La nueva época, que deben llevar los tokens emitidos a continuación.
+   */
+  public long bumpRevocationEpoch(Integer userId) {
+    repository.incrementRevocationEpoch(userId);
+    return reload(userId)
+        .map(UserTokenState::revocationEpoch)
+        .orElseThrow();
+  }
+
+  private Optional<UserTokenState> current(Integer userId) {
+    UserTokenState state = states.get(userId);
+    if (state != null) {
+      return Optional.of(state);
+    }
+    Optional<UserTokenState> stored = repository.findTokenStateById(userId);
+    // Un incremento concurrente ya publicado tiene prioridad sobre la lectura
+    return stored.map(loaded -> {
+      UserTokenState published = states.putIfAbsent(userId, loaded);
+      return published == null ? loaded : published;
+    });
+  }
+
+  /**
+   * Aplica el estado publicado por otra instancia. Ambos contadores solo crecen, así que un cambio
+   * atrasado no deshace uno más reciente.
+   */
+  @Override
+  public void onUserStateChanged(Integer userId, UserTokenState state) {
+    states.merge(userId, state, UserTokenStates::newest);
+  }
+
+  private Optional<UserTokenState> reload(Integer userId) {
+    Optional<UserTokenState> stored = repository.findTokenStateById(userId);
+    if (stored.isEmpty()) {
+      afterCommit(() -> states.remove(userId));
+      return stored;
+    }
+    revocationStore.userStateChanged(userId, stored.get());
+    // Un estado más reciente publicado por otra instancia entre el incremento y la lectura no se pisa
+    afterCommit(() -> states.merge(userId, stored.get(), UserTokenStates::newest));
+    UserTokenState published = states.get(userId);
+    return Optional.of(published == null ? stored.get() : newest(published, stored.get()));
+  }
+
+  private static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        action.run();
+      }
+    });
+  }
+
+  private static UserTokenState newest(UserTokenState current, UserTokenState published) {
+    return new UserTokenState(
+        Math.max(current.tokenVersion(), published.tokenVersion()),
+        Math.max(current.revocationEpoch(), published.revocationEpoch()));
+  }
+}
@@ -0,0 +1,61 @@
+package com.fredgar.pe.business.components;
+
+import com.fredgar.pe.business.enums.Currency;
+import com.fredgar.pe.business.model.ExchangeRate;
+import com.fredgar.pe.business.repository.ExchangeRateRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ExchangeRateCacheTest {
+
+  private final ExchangeRateCache cache = new ExchangeRateCache(
+      mock(ExchangeRateRepository.class), new ExchangeRateTriangulator(20, new Currency[0]));
+
+  @Test
+  void olderVersionPublishedLaterDoesNotOverwriteNewer() {
+    // T1 y T2 confirman en ese orden, pero sus callbacks llegan T2, T1
+    cache.put(rate(1, Currency.USD, Currency.PEN, "3.80", 2));
+    cache.put(rate(1, Currency.USD, Currency.PEN, "3.70", 1));
+
+    assertThat(cache.get(Currency.USD, Currency.PEN).getRate()).isEqualByComparingTo("3.80");
+  }
+
+  @Test
+  void reloadReadBeforeACommittedPutKeepsThePut() {
+    cache.replaceAll(List.of(rate(1, Currency.USD, Currency.PEN, "3.70", 1)));
+    cache.put(rate(1, Currency.USD, Currency.PEN, "3.80", 2));
+
+    // Lectura hecha antes de que confirmara la escritura anterior
+    cache.replaceAll(List.of(rate(1, Currency.USD, Currency.PEN, "3.70", 1)));
+
+    assertThat(cache.get(Currency.USD, Currency.PEN).getRate()).isEqualByComparingTo("3.80");
+  }
+
+  @Test
+  void reloadPublishesNewerVersionsAndMovedPairs() {
+    cache.put(rate(1, Currency.USD, Currency.PEN, "3.70", 1));
+
+    cache.replaceAll(List.of(rate(1, Currency.PEN, Currency.USD, "0.27", 2)));
+
+    assertThat(cache.snapshot().registered()).singleElement()
+        .satisfies(exchangeRate -> {
+          assertThat(exchangeRate.getCurrencyFrom()).isEqualTo(Currency.PEN);
+          assertThat(exchangeRate.getRate()).isEqualByComparingTo("0.27");
+        });
+  }
+
+  private static ExchangeRate rate(int id, Currency from, Currency to, String rate, long version) {
+    ExchangeRate exchangeRate = new ExchangeRate();
+    exchangeRate.setId(id);
+    exchangeRate.setCurrencyFrom(from);
+    exchangeRate.setCurrencyTo(to);
+    exchangeRate.setRate(new BigDecimal(rate));
+    exchangeRate.setVersion(version);
+    return exchangeRate;
+  }
+}
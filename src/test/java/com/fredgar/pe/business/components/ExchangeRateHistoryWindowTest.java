@@ -0,0 +1,64 @@
+package com.fredgar.pe.business.components;
+
+import com.fredgar.pe.business.enums.Currency;
+import com.fredgar.pe.business.model.ExchangeRateHistory;
+import com.fredgar.pe.business.repository.ExchangeRateHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ExchangeRateHistoryWindowTest {
+
+  private static final Instant T1 = Instant.parse("2024-01-01T00:00:00Z");
+  private static final Instant T2 = Instant.parse("2024-02-01T00:00:00Z");
+  private static final Instant T3 = Instant.parse("2024-03-01T00:00:00Z");
+
+  private final ExchangeRateHistoryWindow window = new ExchangeRateHistoryWindow(
+      mock(ExchangeRateHistoryRepository.class), new ExchangeRateTriangulator(20, new Currency[0]), 10);
+
+  @BeforeEach
+  void setUp() {
+    window.reload();
+  }
+
+  @Test
+  void derivesTheInversePairFromTheRatesInForceAtTheDate() {
+    window.append(version(Currency.USD, Currency.PEN, "3.70", T1));
+    window.append(version(Currency.USD, Currency.PEN, "3.80", T3));
+
+    BigDecimal expected = BigDecimal.ONE.divide(new BigDecimal("3.70"), new MathContext(20, RoundingMode.HALF_EVEN));
+    assertThat(window.resolveAt(Currency.PEN, Currency.USD, T2).getRate()).isEqualByComparingTo(expected);
+    assertThat(window.resolveAt(Currency.PEN, Currency.USD, Instant.parse("2023-12-31T00:00:00Z"))).isNull();
+  }
+
+  @Test
+  void closedPairHasNoRateAfterItsEndMarker() {
+    window.append(version(Currency.USD, Currency.PEN, "3.70", T1));
+    // El registro se movió a PEN→USD en T2
+    window.append(version(Currency.USD, Currency.PEN, null, T2));
+    window.append(version(Currency.PEN, Currency.USD, "0.27", T2));
+
+    assertThat(window.rateAt(Currency.USD, Currency.PEN, T1)).isEqualByComparingTo("3.70");
+    assertThat(window.rateAt(Currency.USD, Currency.PEN, T3)).isNull();
+    // Después del cierre el par se deriva del nuevo registro, como en la caché actual
+    assertThat(window.resolveAt(Currency.USD, Currency.PEN, T3).getId()).isNull();
+    assertThat(window.resolveAt(Currency.USD, Currency.PEN, T3).getRate())
+        .isEqualByComparingTo(BigDecimal.ONE.divide(new BigDecimal("0.27"), new MathContext(20, RoundingMode.HALF_EVEN)));
+  }
+
+  private static ExchangeRateHistory version(Currency from, Currency to, String rate, Instant effectiveFrom) {
+    ExchangeRateHistory version = new ExchangeRateHistory();
+    version.setCurrencyFrom(from);
+    version.setCurrencyTo(to);
+    version.setRate(rate == null ? null : new BigDecimal(rate));
+    version.setEffectiveFrom(effectiveFrom);
+    return version;
+  }
+}
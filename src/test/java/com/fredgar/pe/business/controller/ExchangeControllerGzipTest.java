@@ -0,0 +1,27 @@
+package com.fredgar.pe.business.controller;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExchangeControllerGzipTest {
+
+  @ParameterizedTest
+  @CsvSource(delimiter = '|', nullValues = "NULL", value = {
+      "NULL|false",
+      "identity|false",
+      "gzip|true",
+      "gzip, deflate, br|true",
+      "GZIP;q=0.5|true",
+      "gzip;q=0|false",
+      "gzip; q=0.000|false",
+      "*|true",
+      "*;q=0|false",
+      "gzip;q=0, *|false",
+      "br, *;q=0.1|true"
+  })
+  void honoursQualityValues(String acceptEncoding, boolean expected) {
+    assertThat(ExchangeController.acceptsGzip(acceptEncoding)).isEqualTo(expected);
+  }
+}
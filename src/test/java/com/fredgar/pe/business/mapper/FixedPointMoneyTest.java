@@ -0,0 +1,32 @@
+package com.fredgar.pe.business.mapper;
+
+import com.fredgar.pe.business.enums.Currency;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FixedPointMoneyTest {
+
+  @ParameterizedTest
+  @CsvSource({
+      "1250.75, 3.7425",
+      "0.005, 1",
+      "0.015, 1",
+      "-0.025, 1",
+      "1E+3, 0.2675",
+      "100, 3.70",
+      "123456789012.34, 98765.4321",
+      "999999999999999999, 999999999999999999"
+  })
+  void matchesBigDecimalSettlement(String amount, String rate) {
+    BigDecimal a = new BigDecimal(amount);
+    BigDecimal r = new BigDecimal(rate);
+
+    BigDecimal expected = a.multiply(r).setScale(Currency.USD.getMinorUnits(), Currency.USD.getRoundingMode());
+
+    assertThat(FixedPointMoney.convert(a, r, Currency.USD)).isEqualTo(expected);
+  }
+}
@@ -0,0 +1,88 @@
+package com.fredgar.pe.security.auth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fredgar.pe.security.config.JwtService;
+import com.fredgar.pe.security.token.TokenRepository;
+import com.fredgar.pe.security.user.UserRepository;
+import com.fredgar.pe.security.user.UserTokenStates;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class AuthenticationServiceLoginTest {
+
+  private static final int EMAIL_MAX_FAILURES = 5;
+  private static final int IP_MAX_FAILURES = 20;
+
+  private final AuthenticationManager authenticationManager = mock(AuthenticationManager.class);
+  private final LoginAttemptGuard loginAttemptGuard = new LoginAttemptGuard(
+      EMAIL_MAX_FAILURES, IP_MAX_FAILURES, Duration.ofSeconds(30), Duration.ofMinutes(15), 1000);
+
+  private AuthenticationService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new AuthenticationService(
+        mock(UserRepository.class),
+        mock(TokenRepository.class),
+        mock(UserTokenStates.class),
+        mock(PasswordEncoder.class),
+        mock(JwtService.class),
+        authenticationManager,
+        loginAttemptGuard,
+        new ObjectMapper(),
+        mock(TransactionTemplate.class));
+    // Cada llamada al gestor es una verificación bcrypt
+    when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+  }
+
+  @Test
+  void lockedEmailNeverReachesTheAuthenticationManager() {
+    for (int i = 0; i < EMAIL_MAX_FAILURES; i++) {
+      assertThatThrownBy(() -> login("ana@example.com", "10.0.0.1")).isInstanceOf(BadCredentialsException.class);
+    }
+    verify(authenticationManager, times(EMAIL_MAX_FAILURES)).authenticate(any());
+    clearInvocations(authenticationManager);
+
+    // El mismo email desde otras IPs sigue bloqueado
+    for (int i = 0; i < 100; i++) {
+      String ip = "10.0.1." + i;
+      assertThatThrownBy(() -> login(" ANA@example.com", ip)).isInstanceOf(LoginLockedException.class);
+    }
+    verifyNoInteractions(authenticationManager);
+  }
+
+  @Test
+  void lockedIpNeverReachesTheAuthenticationManager() {
+    // Relleno de credenciales: cada intento prueba una cuenta distinta desde la misma IP
+    for (int i = 0; i < IP_MAX_FAILURES; i++) {
+      String email = "cuenta-" + i + "@example.com";
+      assertThatThrownBy(() -> login(email, "10.0.0.2")).isInstanceOf(BadCredentialsException.class);
+    }
+    clearInvocations(authenticationManager);
+
+    for (int i = 0; i < 1000; i++) {
+      String email = "otra-" + i + "@example.com";
+      assertThatThrownBy(() -> login(email, "10.0.0.2")).isInstanceOf(LoginLockedException.class);
+    }
+    verifyNoInteractions(authenticationManager);
+  }
+
+  private void login(String email, String ip) {
+    service.authenticate(new AuthenticationRequest(email, "incorrecta"), ip);
+  }
+}
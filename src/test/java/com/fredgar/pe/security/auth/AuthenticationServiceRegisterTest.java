@@ -0,0 +1,75 @@
+package com.fredgar.pe.security.auth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fredgar.pe.security.config.JwtService;
+import com.fredgar.pe.security.token.TokenRepository;
+import com.fredgar.pe.security.user.Role;
+import com.fredgar.pe.security.user.User;
+import com.fredgar.pe.security.user.UserRepository;
+import com.fredgar.pe.security.user.UserTokenStates;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class AuthenticationServiceRegisterTest {
+
+  private final UserRepository repository = mock(UserRepository.class);
+  private final TokenRepository tokenRepository = mock(TokenRepository.class);
+  private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+
+  private AuthenticationService service;
+
+  private final RegisterRequest request = RegisterRequest.builder()
+      .firstname("Ana")
+      .lastname("Pérez")
+      .email(" Ana@Example.com ")
+      .password("secreto")
+      .role(Role.USER)
+      .build();
+
+  @BeforeEach
+  void setUp() {
+    service = new AuthenticationService(
+        repository,
+        tokenRepository,
+        mock(UserTokenStates.class),
+        passwordEncoder,
+        mock(JwtService.class),
+        mock(AuthenticationManager.class),
+        mock(LoginAttemptGuard.class),
+        new ObjectMapper(),
+        mock(TransactionTemplate.class));
+  }
+
+  @Test
+  void rejectsRegisteredEmailBeforeHashing() {
+    when(repository.findByEmail("ana@example.com")).thenReturn(Optional.of(new User()));
+
+    assertThatThrownBy(() -> service.register(request)).isInstanceOf(EmailAlreadyRegisteredException.class);
+    verifyNoInteractions(passwordEncoder);
+    verify(repository, never()).save(any());
+  }
+
+  @Test
+  void concurrentRegistrationOfTheSameEmailIsAConflict() {
+    when(repository.findByEmail("ana@example.com")).thenReturn(Optional.empty());
+    when(passwordEncoder.encode("secreto")).thenReturn("hash");
+    when(repository.save(any())).thenThrow(new DataIntegrityViolationException("uk_user_email"));
+
+    assertThatThrownBy(() -> service.register(request)).isInstanceOf(EmailAlreadyRegisteredException.class);
+    verifyNoInteractions(tokenRepository);
+  }
+}
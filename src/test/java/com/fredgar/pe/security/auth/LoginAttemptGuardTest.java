@@ -0,0 +1,93 @@
+package com.fredgar.pe.security.auth;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginAttemptGuardTest {
+
+  private static final int MAX_ENTRIES = 100;
+
+  private final LoginAttemptGuard guard =
+      new LoginAttemptGuard(5, 50, Duration.ofSeconds(30), Duration.ofMinutes(15), MAX_ENTRIES);
+
+  @Test
+  void locksAfterMaxFailuresAndUnlocksOnSuccess() {
+    for (int i = 0; i < 4; i++) {
+      guard.recordFailure("ana@example.com", null);
+    }
+    assertThatCode(() -> guard.checkAllowed("ana@example.com", null)).doesNotThrowAnyException();
+
+    guard.recordFailure("ana@example.com", null);
+    assertThatThrownBy(() -> guard.checkAllowed(" ANA@example.com", null)).isInstanceOf(LoginLockedException.class);
+
+    guard.recordSuccess("ana@example.com");
+    assertThatCode(() -> guard.checkAllowed("ana@example.com", null)).doesNotThrowAnyException();
+  }
+
+  @Test
+  void sizeTriggeredRotationsKeepLockouts() {
+    lock("victima@example.com");
+
+    // Muchas más claves que max-entries: fuerza varias rotaciones por tamaño seguidas
+    for (int i = 0; i < MAX_ENTRIES * 10; i++) {
+      guard.recordFailure("relleno-" + i + "@example.com", null);
+    }
+
+    assertThatThrownBy(() -> guard.checkAllowed("victima@example.com", null)).isInstanceOf(LoginLockedException.class);
+  }
+
+  @Test
+  void lockoutsSurviveConcurrentFloodOfNewKeys() throws Exception {
+    List<String> locked = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      locked.add("bloqueado-" + i + "@example.com");
+      lock(locked.get(i));
+    }
+
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (int i = 0; i < 20_000; i++) {
+            guard.recordFailure("hilo-" + thread + "-" + i + "@example.com", "10.0." + thread + "." + (i % 250));
+            guard.checkAllowed("hilo-" + thread + "-" + (i / 2) + "@example.com", null);
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(1, TimeUnit.MINUTES);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    for (String email : locked) {
+      assertThatThrownBy(() -> guard.checkAllowed(email, null)).isInstanceOf(LoginLockedException.class);
+    }
+  }
+
+  private void lock(String email) {
+    for (int i = 0; i < 5; i++) {
+      guard.recordFailure(email, null);
+    }
+    assertThatThrownBy(() -> guard.checkAllowed(email, null)).isInstanceOf(LoginLockedException.class);
+  }
+}
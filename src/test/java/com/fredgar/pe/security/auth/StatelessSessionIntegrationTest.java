@@ -0,0 +1,199 @@
+package com.fredgar.pe.security.auth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fredgar.pe.security.token.TokenRepository;
+import com.fredgar.pe.security.token.TokenType;
+import com.fredgar.pe.security.user.Role;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:stateless-session;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.jpa.show-sql=false",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "application.security.jwt.session-mode=STATELESS"
+})
+@AutoConfigureMockMvc
+class StatelessSessionIntegrationTest {
+
+  private static final String PROTECTED = "/api/v1/demo-controller/public";
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private TokenRepository tokenRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  @Test
+  void authenticatedRequestsDoNoDatabaseIo() throws Exception {
+    AuthenticationResponse session = register();
+
+    statistics.clear();
+    for (int i = 0; i < 20; i++) {
+      access(session.getAccessToken()).andExpect(status().isOk());
+    }
+
+    assertThat(statistics.getPrepareStatementCount()).isZero();
+    assertThat(tokenRepository.findAll()).noneMatch(token -> token.getTokenType() == TokenType.BEARER);
+  }
+
+  @Test
+  void refreshRotatesTheFamilyAndRevokesThePreviousAccessToken() throws Exception {
+    AuthenticationResponse first = register();
+
+    AuthenticationResponse second = refresh(first.getRefreshToken());
+
+    access(first.getAccessToken()).andExpect(status().isForbidden());
+    access(second.getAccessToken()).andExpect(status().isOk());
+
+    // Reusar el token de actualización ya consumido cierra toda la familia
+    mockMvc.perform(post("/api/v1/auth/refresh-token").header(HttpHeaders.AUTHORIZATION, "Bearer " + first.getRefreshToken()))
+        .andExpect(status().isUnauthorized());
+    mockMvc.perform(post("/api/v1/auth/refresh-token").header(HttpHeaders.AUTHORIZATION, "Bearer " + second.getRefreshToken()))
+        .andExpect(status().isUnauthorized());
+    access(second.getAccessToken()).andExpect(status().isForbidden());
+  }
+
+  @Test
+  void refreshTokenRevokedByANewLoginIsRejectedWithoutClosingTheNewSession() throws Exception {
+    String email = UUID.randomUUID() + "@example.com";
+    AuthenticationResponse oldDevice = register(email);
+    AuthenticationResponse newDevice = authenticate(email);
+
+    // El token anterior fue revocado por el inicio de sesión, no rotado: no es una reutilización
+    mockMvc.perform(post("/api/v1/auth/refresh-token").header(HttpHeaders.AUTHORIZATION, "Bearer " + oldDevice.getRefreshToken()))
+        .andExpect(status().isUnauthorized());
+
+    access(newDevice.getAccessToken()).andExpect(status().isOk());
+    AuthenticationResponse renewed = refresh(newDevice.getRefreshToken());
+    access(renewed.getAccessToken()).andExpect(status().isOk());
+  }
+
+  @Test
+  void concurrentUseOfTheSameRefreshTokenRotatesOnceAndClosesTheFamily() throws Exception {
+    String refreshToken = register().getRefreshToken();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      List<Future<MockHttpServletResponse>> responses = List.of(
+          executor.submit(() -> refreshConcurrently(refreshToken, start)),
+          executor.submit(() -> refreshConcurrently(refreshToken, start)));
+      start.countDown();
+
+      List<MockHttpServletResponse> done = List.of(
+          responses.get(0).get(10, TimeUnit.SECONDS),
+          responses.get(1).get(10, TimeUnit.SECONDS));
+      assertThat(done).extracting(MockHttpServletResponse::getStatus)
+          .containsExactlyInAnyOrder(HttpStatus.OK.value(), HttpStatus.UNAUTHORIZED.value());
+
+      // La solicitud que perdió delata la copia: la rotación que ganó también queda cerrada
+      MockHttpServletResponse rotated = done.stream()
+          .filter(response -> response.getStatus() == HttpStatus.OK.value())
+          .findFirst()
+          .orElseThrow();
+      AuthenticationResponse winner = objectMapper.readValue(rotated.getContentAsString(), AuthenticationResponse.class);
+      access(winner.getAccessToken()).andExpect(status().isForbidden());
+      mockMvc.perform(post("/api/v1/auth/refresh-token").header(HttpHeaders.AUTHORIZATION, "Bearer " + winner.getRefreshToken()))
+          .andExpect(status().isUnauthorized());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void logoutRevokesAccessAndRefreshTokens() throws Exception {
+    AuthenticationResponse session = register();
+    access(session.getAccessToken()).andExpect(status().isOk());
+
+    mockMvc.perform(post("/api/v1/auth/logout").header(HttpHeaders.AUTHORIZATION, "Bearer " + session.getAccessToken()))
+        .andExpect(status().isOk());
+
+    access(session.getAccessToken()).andExpect(status().isForbidden());
+    mockMvc.perform(post("/api/v1/auth/refresh-token").header(HttpHeaders.AUTHORIZATION, "Bearer " + session.getRefreshToken()))
+        .andExpect(status().isUnauthorized());
+  }
+
+  private AuthenticationResponse register() throws Exception {
+    return register(UUID.randomUUID() + "@example.com");
+  }
+
+  private AuthenticationResponse register(String email) throws Exception {
+    RegisterRequest request = RegisterRequest.builder()
+        .firstname("Ana")
+        .lastname("Pérez")
+        .email(email)
+        .password("password")
+        .role(Role.USER)
+        .build();
+    String body = mockMvc.perform(post("/api/v1/auth/register")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(request)))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    return objectMapper.readValue(body, AuthenticationResponse.class);
+  }
+
+  private AuthenticationResponse authenticate(String email) throws Exception {
+    String body = mockMvc.perform(post("/api/v1/auth/authenticate")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(new AuthenticationRequest(email, "password"))))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    return objectMapper.readValue(body, AuthenticationResponse.class);
+  }
+
+  private MockHttpServletResponse refreshConcurrently(String refreshToken, CountDownLatch start) throws Exception {
+    start.await();
+    return mockMvc.perform(post("/api/v1/auth/refresh-token").header(HttpHeaders.AUTHORIZATION, "Bearer " + refreshToken))
+        .andReturn().getResponse();
+  }
+
+  private AuthenticationResponse refresh(String refreshToken) throws Exception {
+    String body = mockMvc.perform(post("/api/v1/auth/refresh-token").header(HttpHeaders.AUTHORIZATION, "Bearer " + refreshToken))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    return objectMapper.readValue(body, AuthenticationResponse.class);
+  }
+
+  private ResultActions access(String accessToken) throws Exception {
+    return mockMvc.perform(get(PROTECTED).header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken));
+  }
+}
@@ -0,0 +1,68 @@
+package com.fredgar.pe.security.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtKeyRingTest {
+
+  private static final long REFRESH_EXPIRATION = 604_800_000L;
+
+  @Test
+  void rejectsKeystoreWithUnsupportedKeyType() {
+    JwtKeyRing keyRing = keystore("classpath:keystores/jwt-ec.p12");
+
+    assertThatThrownBy(keyRing::init)
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("ec-2024");
+  }
+
+  @Test
+  void publishesEd25519KeyFromKeystore() throws Exception {
+    JwtKeyRing keyRing = keystore("classpath:keystores/jwt-ed25519.p12");
+    keyRing.init();
+
+    assertThat(keyRing.signingKey().kid()).isEqualTo("ed-2024");
+    assertThat(keys(keyRing)).singleElement().satisfies(jwk -> {
+      assertThat(jwk).containsEntry("kty", "OKP").containsEntry("crv", "Ed25519").containsEntry("kid", "ed-2024");
+      assertThat(jwk).containsKey("x");
+    });
+  }
+
+  @Test
+  void publishesEphemeralRsaKey() throws Exception {
+    JwtKeyRing keyRing = new JwtKeyRing("RS256", "", "", "", REFRESH_EXPIRATION);
+    keyRing.init();
+
+    assertThat(keys(keyRing)).singleElement().satisfies(jwk ->
+        assertThat(jwk).containsEntry("kty", "RSA").containsEntry("kid", keyRing.signingKey().kid()));
+  }
+
+  @Test
+  void rejectsUnknownAlgorithm() {
+    assertThatThrownBy(() -> new JwtKeyRing("HS256", "", "", "", REFRESH_EXPIRATION))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("HS256");
+  }
+
+  @Test
+  void generatesEphemeralEd25519Key() throws Exception {
+    JwtKeyRing keyRing = new JwtKeyRing("EdDSA", "", "", "", REFRESH_EXPIRATION);
+    keyRing.init();
+
+    assertThat(keys(keyRing)).singleElement().satisfies(jwk -> assertThat(jwk).containsEntry("crv", "Ed25519"));
+  }
+
+  private static JwtKeyRing keystore(String location) {
+    return new JwtKeyRing("RS256", location, "changeit", "", REFRESH_EXPIRATION);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Map<String, Object>> keys(JwtKeyRing keyRing) {
+    return (List<Map<String, Object>>) keyRing.jwks().get("keys");
+  }
+}
@@ -0,0 +1,107 @@
+package com.fredgar.pe.security.config;
+
+import com.fredgar.pe.security.token.InMemoryRevocationStore;
+import com.fredgar.pe.security.token.TokenRepository;
+import com.fredgar.pe.security.token.TokenRevocationIndex;
+import com.fredgar.pe.security.user.Role;
+import com.fredgar.pe.security.user.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class JwtServiceTest {
+
+  private static final long REFRESH_EXPIRATION = 604_800_000L;
+
+  private final User user = User.builder()
+      .id(7)
+      .email("ana@example.com")
+      .password("secreto")
+      .role(Role.USER)
+      .build();
+
+  private JwtService jwtService;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    jwtService = jwtService(86_400_000L);
+  }
+
+  @Test
+  void secondVerificationIsServedFromTheCache() {
+    String token = jwtService.generateToken(user);
+
+    Optional<VerifiedJwt> first = jwtService.verify(token);
+    Optional<VerifiedJwt> second = jwtService.verify(token);
+
+    assertThat(first).isPresent();
+    assertThat(second).containsSame(first.get());
+    assertThat(first.get().subject()).isEqualTo(user.getEmail());
+    assertThat(first.get().userId()).isEqualTo(user.getId());
+    assertThat(first.get().digest()).isEqualTo(JwtService.digest(token));
+  }
+
+  @Test
+  void rejectsAlreadyExpiredToken() throws Exception {
+    String token = jwtService(-60_000L).generateToken(user);
+
+    assertThat(jwtService.verify(token)).isEmpty();
+  }
+
+  @Test
+  void cachedTokenIsRejectedOnceItExpires() throws Exception {
+    JwtService shortLived = jwtService(1_500L);
+    String token = shortLived.generateToken(user);
+    VerifiedJwt verified = shortLived.verify(token).orElseThrow();
+
+    // La expiración del JWT se guarda en segundos: se espera hasta pasar la que quedó firmada
+    Thread.sleep(Math.max(0, verified.expiration().getTime() - System.currentTimeMillis()) + 50);
+
+    assertThat(shortLived.verify(token)).isEmpty();
+  }
+
+  @Test
+  void rejectsTamperedToken() {
+    String token = jwtService.generateToken(user);
+    String tampered = token.substring(0, token.length() - 4) + (token.endsWith("AAAA") ? "BBBB" : "AAAA");
+
+    assertThat(jwtService.verify(tampered)).isEmpty();
+  }
+
+  @Test
+  void cacheDoesNotHideRevocation() {
+    TokenRevocationIndex revocationIndex =
+        new TokenRevocationIndex(mock(TokenRepository.class), jwtService, new InMemoryRevocationStore());
+    revocationIndex.rebuild();
+    String token = jwtService.generateToken(user);
+    VerifiedJwt cached = jwtService.verify(token).orElseThrow();
+    assertThat(revocationIndex.isRevoked(cached)).isFalse();
+
+    revocationIndex.revoke(token);
+
+    VerifiedJwt again = jwtService.verify(token).orElseThrow();
+    assertThat(again).isSameAs(cached);
+    assertThat(revocationIndex.isRevoked(again)).isTrue();
+  }
+
+  /**
+   * Servicio con claves efímeras RS256 y los valores por defecto de application.yml.
+   */
+  static JwtService jwtService(long expiration) throws Exception {
+    JwtKeyRing keyRing = new JwtKeyRing("RS256", "", "", "", REFRESH_EXPIRATION);
+    keyRing.init();
+    JwtService service = new JwtService(keyRing);
+    ReflectionTestUtils.setField(service, "jwtExpiration", expiration);
+    ReflectionTestUtils.setField(service, "refreshExpiration", REFRESH_EXPIRATION);
+    ReflectionTestUtils.setField(service, "sessionMode", SessionMode.STATEFUL);
+    ReflectionTestUtils.setField(service, "statelessExpiration", expiration);
+    ReflectionTestUtils.setField(service, "claimsCacheMaxSize", 10_000);
+    service.init();
+    return service;
+  }
+}
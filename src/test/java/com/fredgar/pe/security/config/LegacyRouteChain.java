@@ -0,0 +1,77 @@
+package com.fredgar.pe.security.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.authorization.AuthenticatedAuthorizationManager;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.fredgar.pe.security.user.Permission.ADMIN_READ;
+import static com.fredgar.pe.security.user.Permission.MANAGER_READ;
+import static com.fredgar.pe.security.user.Role.ADMIN;
+import static com.fredgar.pe.security.user.Role.MANAGER;
+
+/**
+ * Cadena de {@code requestMatchers} que {@link RouteAuthorizationTable} reemplazó, tal como estaba
+ * registrada en {@link SecurityConfiguration}: sirve de referencia para comparar decisiones.
+ */
+final class LegacyRouteChain {
+
+  private static final AuthorizationManager<RequestAuthorizationContext> PERMIT_ALL =
+      (authentication, context) -> new AuthorizationDecision(true);
+
+  private final List<AntPathRequestMatcher> matchers = new ArrayList<>();
+  private final List<AuthorizationManager<RequestAuthorizationContext>> managers = new ArrayList<>();
+
+  LegacyRouteChain() {
+    add("/h2-console/**", PERMIT_ALL);
+    add("/api/v1/auth/**", PERMIT_ALL);
+    add("/swagger-ui/**", PERMIT_ALL);
+    add("/v3/api-docs/**", PERMIT_ALL);
+    add("/swagger-resources/**", PERMIT_ALL);
+    add("/webjars/**", PERMIT_ALL);
+    add("/.well-known/jwks.json", PERMIT_ALL);
+
+    add("/api/exchange-rate/v1/convert", AuthorityAuthorizationManager.hasAnyRole(ADMIN.name()));
+    add("/api/exchange-rate/v1/convert/batch", AuthorityAuthorizationManager.hasAnyRole(ADMIN.name()));
+    add("/api/exchange-rate/v1/convert/stream", AuthorityAuthorizationManager.hasAnyRole(ADMIN.name()));
+    add("/api/exchange-rate/v1/create", AuthorityAuthorizationManager.hasAnyRole(ADMIN.name()));
+    add("/api/exchange-rate/v1/import", AuthorityAuthorizationManager.hasAnyRole(ADMIN.name()));
+    add("/api/exchange-rate/v1/update/*", AuthorityAuthorizationManager.hasAnyRole(ADMIN.name()));
+    add("/api/exchange-rate/v1/all", AuthorityAuthorizationManager.hasAnyRole(ADMIN.name(), MANAGER.name()));
+    add("/api/exchange-rate/v1/*", AuthenticatedAuthorizationManager.authenticated());
+
+    add("/api/v1/demo-controller/admin", AuthorityAuthorizationManager.hasAnyRole(ADMIN.name()));
+    add("/api/v1/demo-controller/admin", AuthorityAuthorizationManager.hasAnyAuthority(ADMIN_READ.name()));
+    add("/api/v1/demo-controller/manager", AuthorityAuthorizationManager.hasAnyRole(MANAGER.name()));
+    add("/api/v1/demo-controller/manager", AuthorityAuthorizationManager.hasAnyAuthority(MANAGER_READ.name()));
+    add("/api/v1/demo-controller/public", AuthenticatedAuthorizationManager.authenticated());
+
+    add("/api/v1/management/**", AuthorityAuthorizationManager.hasAnyRole(ADMIN.name(), MANAGER.name()));
+  }
+
+  /**
+   * @return Decisión de la primera regla que coincide; sin regla se exige autenticación, como {@code anyRequest().authenticated()}.
+   */
+  AuthorizationDecision check(Supplier<Authentication> authentication, HttpServletRequest request) {
+    RequestAuthorizationContext context = new RequestAuthorizationContext(request);
+    for (int i = 0; i < matchers.size(); i++) {
+      if (matchers.get(i).matches(request)) {
+        return managers.get(i).check(authentication, context);
+      }
+    }
+    return AuthenticatedAuthorizationManager.<RequestAuthorizationContext>authenticated().check(authentication, context);
+  }
+
+  private void add(String pattern, AuthorizationManager<RequestAuthorizationContext> manager) {
+    matchers.add(new AntPathRequestMatcher(pattern));
+    managers.add(manager);
+  }
+}
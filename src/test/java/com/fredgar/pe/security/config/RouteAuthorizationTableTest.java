@@ -0,0 +1,113 @@
+package com.fredgar.pe.security.config;
+
+import com.fredgar.pe.security.user.Role;
+import com.fredgar.pe.security.user.User;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteAuthorizationTableTest {
+
+  private static final RouteAuthorizationTable TABLE = SecurityConfiguration.routeAuthorizationTable();
+  private static final LegacyRouteChain LEGACY = new LegacyRouteChain();
+
+  private static final List<String> PATHS = List.of(
+      "/",
+      "/h2-console",
+      "/h2-console/",
+      "/h2-console/login.do",
+      "/H2-console/login.do",
+      "/api/v1/auth/authenticate",
+      "/api/v1/auth/refresh-token/",
+      "/api/v1/Auth/authenticate",
+      "/swagger-ui/index.html",
+      "/v3/api-docs",
+      "/v3/api-docs/swagger-config",
+      "/swagger-resources/configuration/ui",
+      "/webjars/swagger-ui/5.2.0/swagger-ui.css",
+      "/.well-known/jwks.json",
+      "/.well-known/jwks.json/",
+      "/.well-known/openid-configuration",
+      "/api/exchange-rate/v1",
+      "/api/exchange-rate/v1/",
+      "/api/exchange-rate/v1/convert",
+      "/api/exchange-rate/v1/convert/",
+      "/api/exchange-rate/v1/Convert",
+      "/api/exchange-rate/v1/CONVERT",
+      "/api/exchange-rate/v1/convert/batch",
+      "/api/exchange-rate/v1/convert/Batch",
+      "/api/exchange-rate/v1/convert/stream",
+      "/api/exchange-rate/v1/convert/other",
+      "/api/exchange-rate/v1/create",
+      "/api/exchange-rate/v1/import",
+      "/api/exchange-rate/v1/update",
+      "/api/exchange-rate/v1/update/",
+      "/api/exchange-rate/v1/update/12",
+      "/api/exchange-rate/v1/update/12/",
+      "/api/exchange-rate/v1/update/12/history",
+      "/api/exchange-rate/v1/all",
+      "/api/exchange-rate/v1/ALL",
+      "/api/exchange-rate/v1/USD/PEN",
+      "/api/exchange-rate/v1/find",
+      "/api/exchange-rate/v2/convert",
+      "/api/v1/demo-controller",
+      "/api/v1/demo-controller/admin",
+      "/api/v1/demo-controller/Admin",
+      "/api/v1/demo-controller/manager",
+      "/api/v1/demo-controller/manager/",
+      "/api/v1/demo-controller/public",
+      "/api/v1/demo-controller/other",
+      "/api/v1/management",
+      "/api/v1/management/",
+      "/api/v1/management/users",
+      "/api/v1/management/users/bulk",
+      "/api/v1/Management/users",
+      "/api/v1/users/change-password",
+      "/unknown/path");
+
+  static Stream<Arguments> pathsAndPrincipals() {
+    List<Arguments> arguments = new ArrayList<>();
+    principals().forEach((name, authentication) -> PATHS.forEach(path -> arguments.add(Arguments.of(path, name, authentication))));
+    return arguments.stream();
+  }
+
+  @ParameterizedTest(name = "{0} como {1}")
+  @MethodSource("pathsAndPrincipals")
+  void decidesLikeTheRequestMatchersChain(String path, String principal, Authentication authentication) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+    request.setServletPath(path);
+
+    boolean expected = LEGACY.check(() -> authentication, request).isGranted();
+    boolean actual = TABLE.check(() -> authentication, new RequestAuthorizationContext(request)).isGranted();
+
+    assertThat(actual).as("%s como %s", path, principal).isEqualTo(expected);
+  }
+
+  private static Map<String, Authentication> principals() {
+    Map<String, Authentication> principals = new LinkedHashMap<>();
+    principals.put("anónimo", new AnonymousAuthenticationToken(
+        "key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+    for (Role role : Role.values()) {
+      User user = User.builder().id(1).email(role.name().toLowerCase() + "@example.com").role(role).build();
+      principals.put(role.name(), new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+      // Principal que no es un User: la tabla usa las autoridades ROLE_
+      principals.put(role.name() + " por autoridades",
+          new UsernamePasswordAuthenticationToken("externo", null, role.getAuthorities()));
+    }
+    return principals;
+  }
+}
@@ -0,0 +1,149 @@
+package com.fredgar.pe.security.token;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fredgar.pe.ServiceSpringSecurityApplication;
+import com.fredgar.pe.security.auth.AuthenticationRequest;
+import com.fredgar.pe.security.auth.AuthenticationResponse;
+import com.fredgar.pe.security.auth.RegisterRequest;
+import com.fredgar.pe.security.user.Role;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Dos instancias de la aplicación sobre la misma base H2 con {@code revocation.store=CHANGELOG}: una
+ * revocación hecha en el nodo A debe rechazarse en el nodo B tras unas pocas lecturas del registro.
+ * La latencia medida se informa, pero no se exige un valor: con dos contextos en la misma JVM depende
+ * de la carga de la máquina.
+ */
+class ChangeLogRevocationStoreIntegrationTest {
+
+  private static final long POLL_INTERVAL_MILLIS = 250;
+
+  // Lecturas del registro que se esperan como máximo antes de dar la revocación por perdida
+  private static final int MAX_POLLS = 20;
+
+  private static final String PROTECTED = "/api/v1/demo-controller/public";
+
+  private static ConfigurableApplicationContext nodeA;
+  private static ConfigurableApplicationContext nodeB;
+  private static MockMvc mockMvcA;
+  private static MockMvc mockMvcB;
+  private static ObjectMapper objectMapper;
+
+  @BeforeAll
+  static void startNodes() {
+    String url = "jdbc:h2:mem:revocation-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+    // A crea el esquema; B lo usa tal como está, como una segunda instancia del mismo despliegue
+    nodeA = startNode(url, "create-drop");
+    nodeB = startNode(url, "none");
+    mockMvcA = mockMvc(nodeA);
+    mockMvcB = mockMvc(nodeB);
+    objectMapper = nodeA.getBean(ObjectMapper.class);
+  }
+
+  @AfterAll
+  static void stopNodes() {
+    if (nodeB != null) {
+      nodeB.close();
+    }
+    if (nodeA != null) {
+      nodeA.close();
+    }
+  }
+
+  @Test
+  void logoutOnOneNodeIsRejectedByTheOther() throws Exception {
+    String email = UUID.randomUUID() + "@example.com";
+    String accessToken = register(email).getAccessToken();
+    assertThat(status(mockMvcB, accessToken)).isEqualTo(HttpStatus.OK.value());
+
+    mockMvcA.perform(post("/api/v1/auth/logout").header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken));
+
+    awaitRejectedByNodeB("cierre de sesión", accessToken);
+  }
+
+  @Test
+  void epochBumpOnOneNodeIsRejectedByTheOther() throws Exception {
+    String email = UUID.randomUUID() + "@example.com";
+    String accessToken = register(email).getAccessToken();
+    assertThat(status(mockMvcB, accessToken)).isEqualTo(HttpStatus.OK.value());
+
+    // Un nuevo inicio de sesión en A incrementa la época de revocación y cierra las sesiones anteriores
+    mockMvcA.perform(post("/api/v1/auth/authenticate")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(new AuthenticationRequest(email, "password"))));
+
+    awaitRejectedByNodeB("nuevo inicio de sesión", accessToken);
+  }
+
+  private static void awaitRejectedByNodeB(String cause, String accessToken) throws Exception {
+    long startedAt = System.nanoTime();
+    long deadline = startedAt + TimeUnit.MILLISECONDS.toNanos(MAX_POLLS * POLL_INTERVAL_MILLIS);
+    while (status(mockMvcB, accessToken) == HttpStatus.OK.value()) {
+      assertThat(System.nanoTime())
+          .as("el nodo B sigue aceptando el token después de %d lecturas del registro", MAX_POLLS)
+          .isLessThan(deadline);
+      Thread.sleep(10);
+    }
+    System.out.printf("Revocación por %s propagada al nodo B en %d ms (lectura cada %d ms)%n",
+        cause, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), POLL_INTERVAL_MILLIS);
+  }
+
+  private static AuthenticationResponse register(String email) throws Exception {
+    RegisterRequest request = RegisterRequest.builder()
+        .firstname("Ana")
+        .lastname("Pérez")
+        .email(email)
+        .password("password")
+        .role(Role.USER)
+        .build();
+    String body = mockMvcA.perform(post("/api/v1/auth/register")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(request)))
+        .andReturn().getResponse().getContentAsString();
+    return objectMapper.readValue(body, AuthenticationResponse.class);
+  }
+
+  private static int status(MockMvc mockMvc, String accessToken) throws Exception {
+    return mockMvc.perform(get(PROTECTED).header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+        .andReturn().getResponse().getStatus();
+  }
+
+  private static ConfigurableApplicationContext startNode(String url, String ddlAuto) {
+    return new SpringApplicationBuilder(ServiceSpringSecurityApplication.class)
+        .properties(
+            "server.port=0",
+            "spring.datasource.url=" + url,
+            "spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+            "spring.jpa.show-sql=false",
+            "application.security.revocation.store=CHANGELOG",
+            "application.security.revocation.poll-interval=" + POLL_INTERVAL_MILLIS,
+            // Ambos nodos firman y verifican con las mismas claves
+            "application.security.jwt.signing.keystore=classpath:keystores/jwt-ed25519.p12",
+            "application.security.jwt.signing.keystore-password=changeit")
+        .run();
+  }
+
+  private static MockMvc mockMvc(ConfigurableApplicationContext context) {
+    return MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+        .addFilters(context.getBean("springSecurityFilterChain", Filter.class))
+        .build();
+  }
+}
@@ -0,0 +1,157 @@
+package com.fredgar.pe.security.user;
+
+import com.fredgar.pe.security.auth.AuthenticationService;
+import com.fredgar.pe.security.auth.RegisterRequest;
+import com.fredgar.pe.security.config.BoundedPasswordEncoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserProvisioningServiceTest {
+
+  private final UserRepository repository = mock(UserRepository.class);
+  private final BoundedPasswordEncoder passwordEncoder = mock(BoundedPasswordEncoder.class);
+  private final AtomicInteger ids = new AtomicInteger();
+
+  private UserProvisioningService service;
+
+  @AfterEach
+  void tearDown() {
+    if (service != null) {
+      service.shutdown();
+    }
+  }
+
+  @Test
+  void hashesAndSavesChunkByChunk() {
+    service = service(2, 1);
+    hashesEveryPassword();
+    savesEveryUser();
+
+    BulkUserResult result = service.provision(request("a", "b", "c", "d"));
+
+    assertThat(result.created()).isEqualTo(4);
+    InOrder order = inOrder(passwordEncoder, repository);
+    order.verify(passwordEncoder).encodeAll(eq(List.of("secreto-a", "secreto-b")), any());
+    order.verify(repository).saveAll(anyList());
+    order.verify(passwordEncoder).encodeAll(eq(List.of("secreto-c", "secreto-d")), any());
+    order.verify(repository).saveAll(anyList());
+  }
+
+  @Test
+  void concurrentConflictRejectsOnlyTheTakenEmails() {
+    service = service(500, 1);
+    hashesEveryPassword();
+    // Nada registrado al validar; "b" aparece registrado al reintentar el bloque
+    when(repository.findExistingEmails(anyCollection()))
+        .thenReturn(Set.of())
+        .thenReturn(Set.of("b@example.com"));
+    when(repository.saveAll(anyList()))
+        .thenThrow(new DataIntegrityViolationException("uk_user_email"))
+        .thenAnswer(invocation -> withIds(invocation.getArgument(0)));
+
+    BulkUserResult result = service.provision(request("a", "b", "c"));
+
+    assertThat(result.created()).isEqualTo(2);
+    assertThat(result.items()).extracting(BulkUserItemResult::email).containsExactly("a@example.com", "b@example.com", "c@example.com");
+    assertThat(result.items().get(0).id()).isNotNull();
+    assertThat(result.items().get(1).errors()).containsExactly("El email ya está registrado");
+    assertThat(result.items().get(2).id()).isNotNull();
+  }
+
+  @Test
+  void repeatedConflictFallsBackToRowByRow() {
+    service = service(500, 1);
+    hashesEveryPassword();
+    when(repository.findExistingEmails(anyCollection())).thenReturn(Set.of());
+    when(repository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("uk_user_email"));
+    when(repository.save(any(User.class))).thenAnswer(invocation -> {
+      User user = invocation.getArgument(0);
+      if (user.getEmail().startsWith("b")) {
+        throw new DataIntegrityViolationException("uk_user_email");
+      }
+      user.setId(ids.incrementAndGet());
+      return user;
+    });
+
+    BulkUserResult result = service.provision(request("a", "b", "c"));
+
+    assertThat(result.created()).isEqualTo(2);
+    assertThat(result.items().get(1).errors()).containsExactly("El email ya está registrado");
+  }
+
+  @Test
+  void rejectsBulkRequestsBeyondTheConcurrencyLimit() throws Exception {
+    service = service(500, 1);
+    hashesEveryPassword();
+    CountDownLatch saving = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+      saving.countDown();
+      release.await(10, TimeUnit.SECONDS);
+      return withIds(invocation.getArgument(0));
+    });
+
+    CompletableFuture<BulkUserResult> first = CompletableFuture.supplyAsync(() -> service.provision(request("a")));
+    assertThat(saving.await(10, TimeUnit.SECONDS)).isTrue();
+
+    assertThatThrownBy(() -> service.provision(request("b"))).isInstanceOf(UserProvisioningBusyException.class);
+
+    release.countDown();
+    assertThat(first.get(10, TimeUnit.SECONDS).created()).isEqualTo(1);
+    // El permiso se devuelve al terminar
+    assertThat(service.provision(request("c")).created()).isEqualTo(1);
+  }
+
+  private UserProvisioningService service(int chunkSize, int maxConcurrent) {
+    return new UserProvisioningService(
+        repository, passwordEncoder, mock(UserTokenStates.class), mock(AuthenticationService.class),
+        5000, chunkSize, 1, maxConcurrent);
+  }
+
+  private void hashesEveryPassword() {
+    when(passwordEncoder.encodeAll(anyList(), any())).thenAnswer(invocation -> {
+      List<? extends CharSequence> passwords = invocation.getArgument(0);
+      return passwords.stream().map(password -> "hash-" + password).toList();
+    });
+  }
+
+  private void savesEveryUser() {
+    when(repository.saveAll(anyList())).thenAnswer(invocation -> withIds(invocation.getArgument(0)));
+  }
+
+  private List<User> withIds(List<User> users) {
+    users.forEach(user -> user.setId(ids.incrementAndGet()));
+    return users;
+  }
+
+  private static BulkUserRequest request(String... names) {
+    return new BulkUserRequest(List.of(names).stream()
+        .map(name -> RegisterRequest.builder()
+            .firstname(name)
+            .lastname(name)
+            .email(name + "@example.com")
+            .password("secreto-" + name)
+            .role(Role.USER)
+            .build())
+        .toList(), false);
+  }
+}
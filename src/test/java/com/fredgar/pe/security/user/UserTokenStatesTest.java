@@ -0,0 +1,61 @@
+package com.fredgar.pe.security.user;
+
+import com.fredgar.pe.security.token.InMemoryRevocationStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserTokenStatesTest {
+
+  private final UserRepository repository = mock(UserRepository.class);
+  private final UserTokenStates states = new UserTokenStates(repository, new InMemoryRevocationStore());
+
+  @Test
+  void reloadKeepsNewerStatePublishedByAnotherInstance() {
+    // La otra instancia publica la época 5 antes de que la lectura local, ya atrasada, devuelva la 4
+    states.onUserStateChanged(1, new UserTokenState(2, 5));
+    when(repository.findTokenStateById(1)).thenReturn(Optional.of(new UserTokenState(3, 4)));
+
+    long epoch = states.bumpRevocationEpoch(1);
+
+    assertThat(epoch).isEqualTo(5);
+    assertThat(states.isCurrent(1, 3L, 5L)).isTrue();
+    assertThat(states.isCurrent(1, 3L, 4L)).isFalse();
+  }
+
+  @Test
+  void reloadForgetsDeletedUser() {
+    states.track(User.builder().id(1).build());
+    when(repository.findTokenStateById(1)).thenReturn(Optional.empty());
+
+    states.bumpTokenVersion(1);
+
+    assertThat(states.isCurrent(1, 0L, 0L)).isFalse();
+  }
+
+  @Test
+  void bumpInsideTransactionIsPublishedOnlyOnCommit() {
+    states.track(User.builder().id(1).tokenVersion(0).revocationEpoch(0).build());
+    when(repository.findTokenStateById(1)).thenReturn(Optional.of(new UserTokenState(0, 1)));
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      assertThat(states.bumpRevocationEpoch(1)).isEqualTo(1);
+      // Hasta confirmar, los tokens emitidos con la época anterior siguen vigentes
+      assertThat(states.isCurrent(1, 0L, 0L)).isTrue();
+
+      TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    assertThat(states.isCurrent(1, 0L, 0L)).isFalse();
+    assertThat(states.isCurrent(1, 0L, 1L)).isTrue();
+  }
+}